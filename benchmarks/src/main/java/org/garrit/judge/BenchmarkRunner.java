@@ -0,0 +1,41 @@
+package org.garrit.judge;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks, writing results as JSON to <code>jmh-result.json</code>
+ * unless told otherwise, so that they can be compared between versions.
+ * Accepts the usual JMH command-line options.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class BenchmarkRunner
+{
+    public static void main(String[] args) throws Exception
+    {
+        CommandLineOptions cli = new CommandLineOptions(args);
+
+        if (cli.shouldHelp())
+        {
+            cli.showHelp();
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue())
+            options.result("jmh-result.json");
+
+        Runner runner = new Runner(options.build());
+        if (cli.shouldList())
+            runner.list();
+        else
+            runner.run();
+    }
+}
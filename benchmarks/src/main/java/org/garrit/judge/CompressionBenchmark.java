@@ -0,0 +1,134 @@
+package org.garrit.judge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmark receiving an execution whose case output is {@link Compression
+ * compressed}: decoding the submitted message, then decompressing each case
+ * straight into the line judge, as the judgement manager does. The size of the
+ * encoded message is logged when the benchmark is set up, so the time saved
+ * on the network can be weighed against the time spent decompressing.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CompressionBenchmark
+{
+    private static final Logger log = LoggerFactory.getLogger(CompressionBenchmark.class);
+
+    private static final int CASES = 8;
+
+    @Param({ "IDENTITY", "GZIP", "ZSTD" })
+    public Compression compression;
+
+    @Param({ "JSON", "SMILE" })
+    public WireFormat format;
+
+    /**
+     * Size of the output of each case.
+     */
+    @Param({ "64KB", "1MB" })
+    public String caseSize;
+
+    /**
+     * The kind of output: <code>NUMBERS</code> for lines of numbers, or
+     * <code>GRID</code> for a grid of characters.
+     */
+    @Param({ "NUMBERS", "GRID" })
+    public String output;
+
+    private ObjectMapper mapper;
+    private Map<String, ProblemCase> problemCases;
+    private LineJudge judge;
+    private byte[] encodedExecution;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        this.mapper = this.format.newMapper();
+        this.judge = new LineJudge();
+
+        int size = Outputs.parseSize(this.caseSize);
+        byte[] output = this.output.equals("GRID") ? Outputs.grid(size, 80) : Outputs.lines(size, 16, "\n");
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream compressing = this.compression.compress(compressed))
+        {
+            compressing.write(output);
+        }
+
+        Execution execution = new Execution();
+        execution.setId(1);
+        execution.setProblem("problem");
+        this.problemCases = new HashMap<>();
+        for (int i = 0; i < CASES; i++)
+        {
+            ExecutionCase executionCase = new ExecutionCase();
+            executionCase.setName("case" + i);
+            executionCase.setOutput(compressed.toByteArray());
+            execution.getCases().add(executionCase);
+
+            ProblemCase problemCase = new ProblemCase();
+            problemCase.setName("case" + i);
+            problemCase.setOutput(output);
+            this.problemCases.put(problemCase.getName(), problemCase);
+        }
+
+        this.encodedExecution = this.mapper.writeValueAsBytes(execution);
+
+        log.info("{} {}: execution of {} {} {} cases is {} bytes ({}x)", this.format, this.compression, CASES,
+                this.caseSize, this.output, this.encodedExecution.length,
+                String.format("%.1f", (double) output.length * CASES / this.encodedExecution.length));
+    }
+
+    @Benchmark
+    public void receive(Blackhole blackhole) throws IOException
+    {
+        Execution execution = this.mapper.readValue(this.encodedExecution, Execution.class);
+
+        for (ExecutionCase executionCase : execution.getCases())
+        {
+            ExecutionCase bare = new ExecutionCase();
+            bare.setName(executionCase.getName());
+
+            try (InputStream output = this.compression.decompress(new ByteArrayInputStream(executionCase.getOutput())))
+            {
+                blackhole.consume(this.judge.stream(this.problemCases.get(executionCase.getName())).judge(output, bare));
+            }
+        }
+    }
+}
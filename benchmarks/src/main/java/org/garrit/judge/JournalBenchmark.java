@@ -0,0 +1,112 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.Judgement;
+import org.garrit.common.messages.JudgementCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmark the outgoing queue with and without a {@link Journal journal}
+ * behind it: queueing a judgement, taking it and acknowledging its delivery.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JournalBenchmark
+{
+    @Param({ "false", "true" })
+    public boolean journaled;
+
+    /**
+     * The longest a journal write may go without being forced to disk.
+     */
+    @Param({ "10" })
+    public long syncIntervalMillis;
+
+    private Path directory;
+    private Journal journal;
+    private JournaledQueue<Judgement> queue;
+    private Judgement judgement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        ObjectMapper mapper = new ObjectMapper();
+
+        if (this.journaled)
+        {
+            this.directory = Files.createTempDirectory("journal");
+            this.journal = new Journal(this.directory, 64 * 1024 * 1024, this.syncIntervalMillis);
+            this.queue = new JournaledQueue<>(this.journal, mapper, mapper.getTypeFactory().constructType(Judgement.class));
+        }
+        else
+            this.queue = new JournaledQueue<>();
+
+        Execution execution = new Execution();
+        execution.setId(1);
+        execution.setProblem("problem");
+        this.judgement = new Judgement(execution);
+        for (int i = 0; i < 10; i++)
+        {
+            ExecutionCase executionCase = new ExecutionCase();
+            executionCase.setName("case" + i);
+            executionCase.setOutput(new byte[0]);
+
+            JudgementCase judgementCase = new JudgementCase(executionCase);
+            judgementCase.setValue(1);
+            judgementCase.setValueMax(1);
+            this.judgement.getCases().add(judgementCase);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        if (this.journal == null)
+            return;
+
+        this.journal.close();
+        try (Stream<Path> files = Files.walk(this.directory))
+        {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Judgement offerTakeAcknowledge()
+    {
+        this.queue.offer(this.judgement);
+        Judgement taken = this.queue.poll();
+        this.queue.acknowledge(taken);
+
+        return taken;
+    }
+}
@@ -0,0 +1,136 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.garrit.common.Problem;
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Benchmark the judgement pipeline end to end, from
+ * {@link JudgementManager#enqueue enqueueing} executions to their judgements
+ * arriving on the outgoing queue.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JudgementPipelineBenchmark
+{
+    private static final int EXECUTIONS = 64;
+    private static final int CASES = 10;
+
+    @Param({ "1", "4" })
+    public int judgementThreads;
+
+    /**
+     * Size of the output of each case.
+     */
+    @Param({ "1KB", "1MB" })
+    public String caseSize;
+
+    private JudgementManager manager;
+    private ArrayList<Execution> executions = new ArrayList<>();
+
+    /**
+     * A judgement manager serving a single in-memory problem.
+     */
+    private static class InMemoryJudgementManager extends JudgementManager
+    {
+        private final Problem problem;
+
+        public InMemoryJudgementManager(JudgeConfiguration config, Problem problem) throws IOException
+        {
+            super(config, new MetricRegistry());
+            this.problem = problem;
+        }
+
+        @Override
+        protected Problem loadProblem(String name) throws IOException
+        {
+            return this.problem;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        byte[] output = Outputs.lines(Outputs.parseSize(this.caseSize), 64, "\n");
+
+        Problem problem = new Problem();
+        problem.setName("problem");
+        for (int i = 0; i < CASES; i++)
+        {
+            ProblemCase problemCase = new ProblemCase();
+            problemCase.setName("case" + i);
+            problemCase.setOutput(output);
+            problem.getCases().add(problemCase);
+        }
+
+        for (int i = 0; i < EXECUTIONS; i++)
+        {
+            Execution execution = new Execution();
+            execution.setId(i);
+            execution.setProblem("problem");
+            for (int j = 0; j < CASES; j++)
+            {
+                ExecutionCase executionCase = new ExecutionCase();
+                executionCase.setName("case" + j);
+                executionCase.setOutput(output);
+                execution.getCases().add(executionCase);
+            }
+            this.executions.add(execution);
+        }
+
+        JudgeConfiguration config = new JudgeConfiguration();
+        config.setNegotiator(URI.create("http://localhost/"));
+        config.setProblems(Files.createTempDirectory("problems"));
+        config.setJudgementThreads(this.judgementThreads);
+
+        this.manager = new InMemoryJudgementManager(config, problem);
+        this.manager.startJudging();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        this.manager.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EXECUTIONS)
+    public void judge() throws InterruptedException
+    {
+        for (Execution execution : this.executions)
+            this.manager.enqueue(execution);
+
+        for (int i = 0; i < EXECUTIONS; i++)
+            this.manager.outgoingQueue.take();
+    }
+}
@@ -0,0 +1,94 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark the {@link LineJudge line judge} across output sizes, line
+ * lengths, mismatch positions and line endings.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LineJudgeBenchmark
+{
+    @Param({ "1KB", "1MB", "100MB", "500MB" })
+    public String size;
+
+    /**
+     * Approximate length of each line, which determines the line count.
+     */
+    @Param({ "16", "1024" })
+    public int lineLength;
+
+    /**
+     * Where the execution output first differs from the expected output.
+     */
+    @Param({ "NONE", "EARLY", "LATE" })
+    public String mismatch;
+
+    /**
+     * Line endings of the execution output; the expected output always uses
+     * <code>\n</code>.
+     */
+    @Param({ "LF", "CRLF", "CR" })
+    public String ending;
+
+    private ProblemCase problemCase;
+    private LineJudge judge;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        byte[] expected = Outputs.lines(Outputs.parseSize(this.size), this.lineLength, "\n");
+        byte[] actual = Outputs.withEndings(expected, this.ending.equals("LF") ? "\n" : this.ending.equals("CRLF") ? "\r\n" : "\r");
+
+        /* Swap a digit for a letter so the lengths still match. */
+        if (this.mismatch.equals("EARLY"))
+            actual[0] = 'x';
+        else if (this.mismatch.equals("LATE"))
+            actual[actual.length - 2] = 'x';
+
+        this.problemCase = new ProblemCase();
+        this.problemCase.setName("case");
+        this.problemCase.setOutput(expected);
+
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("case");
+        executionCase.setOutput(actual);
+
+        Execution execution = new Execution();
+        execution.getCases().add(executionCase);
+
+        this.judge = new LineJudge(execution);
+    }
+
+    @Benchmark
+    public JudgementCase evaluate() throws IOException
+    {
+        return this.judge.evaluate(this.problemCase);
+    }
+}
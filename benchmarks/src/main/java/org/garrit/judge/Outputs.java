@@ -0,0 +1,117 @@
+package org.garrit.judge;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Generate reproducible program outputs for benchmarking.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class Outputs
+{
+    /**
+     * Seed for all generated outputs, so that every run judges the same bytes.
+     */
+    public static final long SEED = 0x6a75646765L;
+
+    /**
+     * Parse a size such as <code>1KB</code>, <code>10MB</code> or
+     * <code>512</code>.
+     *
+     * @param size the size
+     * @return the size in bytes
+     */
+    public static int parseSize(String size)
+    {
+        if (size.endsWith("KB"))
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+        if (size.endsWith("MB"))
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+
+        return Integer.parseInt(size);
+    }
+
+    /**
+     * Generate lines of space-separated numbers, as a typical problem would
+     * expect.
+     *
+     * @param bytes the approximate size of the output
+     * @param lineLength the approximate length of each line
+     * @param ending the line ending
+     * @return the output
+     */
+    public static byte[] lines(int bytes, int lineLength, String ending)
+    {
+        Random random = new Random(SEED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes + lineLength);
+        StringBuilder line = new StringBuilder(lineLength);
+
+        while (output.size() < bytes)
+        {
+            line.setLength(0);
+            while (line.length() < lineLength)
+            {
+                if (line.length() > 0)
+                    line.append(' ');
+                line.append(random.nextInt(1000000));
+            }
+            line.append(ending);
+
+            byte[] encoded = line.toString().getBytes();
+            output.write(encoded, 0, encoded.length);
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Generate lines of a grid of <code>.</code> and <code>#</code>, as a
+     * simulation problem might expect. Such output is far more repetitive, and
+     * compressible, than lines of numbers.
+     *
+     * @param bytes the approximate size of the output
+     * @param width the width of the grid
+     * @return the output
+     */
+    public static byte[] grid(int bytes, int width)
+    {
+        Random random = new Random(SEED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes + width + 1);
+
+        while (output.size() < bytes)
+        {
+            for (int i = 0; i < width; i++)
+                output.write(random.nextInt(8) == 0 ? '#' : '.');
+            output.write('\n');
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Convert the line endings of an output.
+     *
+     * @param output the output, with <code>\n</code> line endings
+     * @param ending the new line ending
+     * @return the converted output
+     */
+    public static byte[] withEndings(byte[] output, String ending)
+    {
+        if (ending.equals("\n"))
+            return output.clone();
+
+        ByteArrayOutputStream converted = new ByteArrayOutputStream(output.length + output.length / 8);
+        byte[] encoded = ending.getBytes();
+        for (byte b : output)
+        {
+            if (b == '\n')
+                converted.write(encoded, 0, encoded.length);
+            else
+                converted.write(b);
+        }
+
+        return converted.toByteArray();
+    }
+}
@@ -0,0 +1,145 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.Judgement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Benchmark reporting judgements to a slow negotiator, delivering one at a
+ * time or several at once on platform or virtual threads. The negotiator is a
+ * local stub which holds every request for a fixed latency before accepting
+ * it.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReportingBenchmark
+{
+    private static final int REPORTS = 256;
+
+    @Param({ "PLATFORM", "VIRTUAL" })
+    public DeliveryDispatcher.Threads threads;
+
+    @Param({ "1", "16", "256" })
+    public int concurrency;
+
+    /**
+     * How long the negotiator holds each request, in milliseconds.
+     */
+    @Param({ "10" })
+    public int latency;
+
+    private HttpServer negotiator;
+    private ExecutorService negotiatorThreads;
+    /**
+     * Released once for every report the negotiator accepts.
+     */
+    private final Semaphore reported = new Semaphore(0);
+
+    private JudgementManager manager;
+    private final ArrayList<Judgement> judgements = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        this.negotiator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.negotiator.createContext("/", this::handle);
+        this.negotiatorThreads = Executors.newCachedThreadPool();
+        this.negotiator.setExecutor(this.negotiatorThreads);
+        this.negotiator.start();
+
+        for (int i = 0; i < REPORTS; i++)
+        {
+            Execution execution = new Execution();
+            execution.setId(i);
+            execution.setProblem("problem");
+            this.judgements.add(new Judgement(execution));
+        }
+
+        JudgeConfiguration config = new JudgeConfiguration();
+        config.setNegotiator(URI.create("http://localhost:" + this.negotiator.getAddress().getPort() + "/"));
+        config.setProblems(Files.createTempDirectory("problems"));
+        config.setJudgementThreads(1);
+        config.setReportBatchSize(1);
+        config.setReportConcurrency(this.concurrency);
+        config.setReportThreads(this.threads);
+
+        this.manager = new JudgementManager(config, new MetricRegistry());
+        this.manager.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        this.manager.close();
+        this.negotiator.stop(0);
+        this.negotiatorThreads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try (InputStream in = exchange.getRequestBody())
+        {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1)
+                ;
+        }
+
+        try
+        {
+            Thread.sleep(this.latency);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+        this.reported.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REPORTS)
+    public void report() throws InterruptedException
+    {
+        for (Judgement judgement : this.judgements)
+            this.manager.outgoingQueue.offer(judgement);
+
+        this.reported.acquire(REPORTS);
+    }
+}
@@ -0,0 +1,87 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark the {@link TokenJudge token judge} against the
+ * {@link LineJudge line judge} on the same outputs.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TokenJudgeBenchmark
+{
+    @Param({ "line", "token" })
+    public String judge;
+
+    @Param({ "1KB", "1MB", "100MB" })
+    public String size;
+
+    /**
+     * Approximate length of each line, which determines the line count.
+     */
+    @Param({ "16", "1024" })
+    public int lineLength;
+
+    /**
+     * Where the execution output first differs from the expected output.
+     */
+    @Param({ "NONE", "EARLY", "LATE" })
+    public String mismatch;
+
+    private ProblemCase problemCase;
+    private ExecutionCase executionCase;
+    private Judge instance;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        byte[] expected = Outputs.lines(Outputs.parseSize(this.size), this.lineLength, "\n");
+        byte[] actual = expected.clone();
+
+        /* Swap a digit for a letter so the lengths still match. */
+        if (this.mismatch.equals("EARLY"))
+            actual[0] = 'x';
+        else if (this.mismatch.equals("LATE"))
+            actual[actual.length - 2] = 'x';
+
+        this.problemCase = new ProblemCase();
+        this.problemCase.setName("case");
+        this.problemCase.setOutput(expected);
+
+        this.executionCase = new ExecutionCase();
+        this.executionCase.setName("case");
+        this.executionCase.setOutput(actual);
+
+        this.instance = this.judge.equals("line") ? new LineJudge() : new TokenJudge();
+    }
+
+    @Benchmark
+    public JudgementCase evaluate() throws IOException
+    {
+        return this.instance.evaluate(this.problemCase, this.executionCase);
+    }
+}
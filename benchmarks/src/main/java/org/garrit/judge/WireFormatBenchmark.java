@@ -0,0 +1,111 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.Judgement;
+import org.garrit.common.messages.JudgementCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmark encoding and decoding executions and judgements in each
+ * {@link WireFormat wire format}. The size of each encoded message is logged
+ * when the benchmark is set up.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WireFormatBenchmark
+{
+    private static final Logger log = LoggerFactory.getLogger(WireFormatBenchmark.class);
+
+    private static final int CASES = 8;
+
+    @Param({ "JSON", "SMILE" })
+    public WireFormat format;
+
+    /**
+     * Size of the output of each case.
+     */
+    @Param({ "1KB", "64KB", "1MB" })
+    public String caseSize;
+
+    private ObjectMapper mapper;
+    private Execution execution;
+    private Judgement judgement;
+    private byte[] encodedExecution;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        this.mapper = this.format.newMapper();
+
+        byte[] output = Outputs.lines(Outputs.parseSize(this.caseSize), 16, "\n");
+
+        this.execution = new Execution();
+        this.execution.setId(1);
+        this.execution.setProblem("problem");
+        for (int i = 0; i < CASES; i++)
+        {
+            ExecutionCase executionCase = new ExecutionCase();
+            executionCase.setName("case" + i);
+            executionCase.setOutput(output);
+            this.execution.getCases().add(executionCase);
+        }
+
+        this.judgement = new Judgement(this.execution);
+        for (ExecutionCase executionCase : this.execution.getCases())
+        {
+            JudgementCase judgementCase = new JudgementCase(executionCase);
+            judgementCase.setValue(1);
+            judgementCase.setValueMax(1);
+            this.judgement.getCases().add(judgementCase);
+        }
+
+        this.encodedExecution = this.mapper.writeValueAsBytes(this.execution);
+
+        log.info("{}: execution of {} {} cases is {} bytes; judgement is {} bytes", this.format, CASES, this.caseSize,
+                this.encodedExecution.length, this.mapper.writeValueAsBytes(this.judgement).length);
+    }
+
+    @Benchmark
+    public byte[] encodeExecution() throws IOException
+    {
+        return this.mapper.writeValueAsBytes(this.execution);
+    }
+
+    @Benchmark
+    public Execution decodeExecution() throws IOException
+    {
+        return this.mapper.readValue(this.encodedExecution, Execution.class);
+    }
+
+    @Benchmark
+    public byte[] encodeJudgement() throws IOException
+    {
+        return this.mapper.writeValueAsBytes(this.judgement);
+    }
+}
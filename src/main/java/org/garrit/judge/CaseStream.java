@@ -0,0 +1,123 @@
+package org.garrit.judge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+
+/**
+ * Judge the output of a single case incrementally, as it arrives in chunks.
+ * 
+ * A stream is used by a single thread, and is finished exactly once.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public abstract class CaseStream
+{
+    /**
+     * The most output read at once from an input stream.
+     */
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * Judge the next chunk of output.
+     * 
+     * @param chunk the chunk, between its position and limit
+     * @return whether the output may still match, or <code>false</code> if
+     *         it's already known to be wrong and the rest needn't be sent
+     * @throws IOException if an error occurs while judging
+     */
+    public abstract boolean write(ByteBuffer chunk) throws IOException;
+
+    /**
+     * Judge the end of the output.
+     * 
+     * @param executionCase the execution case, without its output
+     * @return the result of judgement
+     * @throws IOException if an error occurs while judging
+     */
+    public abstract JudgementCase finish(ExecutionCase executionCase) throws IOException;
+
+    /**
+     * Judge output read from an input stream, stopping as soon as it's known
+     * to be wrong, and finish.
+     * 
+     * @param output the output
+     * @param executionCase the execution case, without its output
+     * @return the result of judgement
+     * @throws IOException if the output can't be read, or an error occurs
+     *             while judging
+     */
+    public JudgementCase judge(InputStream output, ExecutionCase executionCase) throws IOException
+    {
+        byte[] buffer = new byte[CHUNK_BYTES];
+        int read;
+        while ((read = output.read(buffer)) != -1)
+            if (!this.write(ByteBuffer.wrap(buffer, 0, read)))
+                break;
+
+        return this.finish(executionCase);
+    }
+
+    /**
+     * Build the boolean result reported by most judges: 1/1 if the output
+     * matches, 0/1 if it doesn't.
+     * 
+     * @param executionCase the execution case
+     * @param matches whether the output matches
+     * @return the result of judgement
+     */
+    protected static JudgementCase verdict(ExecutionCase executionCase, boolean matches)
+    {
+        JudgementCase judgementCase = new JudgementCase(executionCase);
+        judgementCase.setValue(matches ? 1 : 0);
+        judgementCase.setValueMin(0);
+        judgementCase.setValueMax(1);
+
+        return judgementCase;
+    }
+
+    /**
+     * Collect the whole output and judge it at the end, for judges which
+     * can't judge incrementally.
+     */
+    static class Buffered extends CaseStream
+    {
+        private final Judge judge;
+        private final ProblemCase problemCase;
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        Buffered(Judge judge, ProblemCase problemCase)
+        {
+            this.judge = judge;
+            this.problemCase = problemCase;
+        }
+
+        @Override
+        public boolean write(ByteBuffer chunk)
+        {
+            if (chunk.hasArray())
+                this.output.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            else
+                for (int k = chunk.position(); k < chunk.limit(); k++)
+                    this.output.write(chunk.get(k));
+
+            return true;
+        }
+
+        @Override
+        public JudgementCase finish(ExecutionCase executionCase) throws IOException
+        {
+            ExecutionCase buffered = new ExecutionCase();
+            buffered.setName(executionCase.getName());
+            buffered.setOutput(this.output.toByteArray());
+
+            return this.judge.evaluate(this.problemCase, buffered);
+        }
+    }
+}
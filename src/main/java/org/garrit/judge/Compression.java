@@ -0,0 +1,146 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+/**
+ * Compression schemes in which executors may send output, named as HTTP
+ * content codings. Whole request bodies may be compressed, as given by their
+ * <code>Content-Encoding</code>, and so may the output of each case of a
+ * submitted execution, as given by its {@link #OUTPUT_HEADER}.
+ *
+ * Compressed output is always decompressed as a stream, so that a judge which
+ * can judge incrementally never holds the whole output.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public enum Compression
+{
+    /**
+     * No compression.
+     */
+    IDENTITY
+    {
+        @Override
+        public InputStream decompress(InputStream input)
+        {
+            return input;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output)
+        {
+            return output;
+        }
+    },
+    GZIP
+    {
+        @Override
+        public InputStream decompress(InputStream input) throws IOException
+        {
+            return new GZIPInputStream(input, BUFFER_BYTES);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException
+        {
+            return new GZIPOutputStream(output, BUFFER_BYTES);
+        }
+    },
+    /**
+     * zlib-wrapped deflate, as HTTP means by <code>deflate</code>.
+     */
+    DEFLATE
+    {
+        @Override
+        public InputStream decompress(InputStream input)
+        {
+            return new InflaterInputStream(input);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output)
+        {
+            return new DeflaterOutputStream(output);
+        }
+    },
+    /**
+     * Zstandard, which decompresses several times faster than gzip for a
+     * similar ratio.
+     */
+    ZSTD
+    {
+        @Override
+        public InputStream decompress(InputStream input) throws IOException
+        {
+            return new ZstdInputStream(input);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException
+        {
+            return new ZstdOutputStream(output);
+        }
+    };
+
+    /**
+     * The request header giving the compression of the output of each case of
+     * a submitted execution.
+     */
+    public static final String OUTPUT_HEADER = "Output-Encoding";
+
+    private static final int BUFFER_BYTES = 8 * 1024;
+
+    /**
+     * Wrap a stream of compressed data.
+     *
+     * @param input the compressed stream
+     * @return the decompressed stream
+     * @throws IOException if the stream can't be read
+     */
+    public abstract InputStream decompress(InputStream input) throws IOException;
+
+    /**
+     * Wrap a stream to compress data written to it. The returned stream must
+     * be closed to finish compression.
+     *
+     * @param output the stream to write compressed data to
+     * @return the stream to write uncompressed data to
+     * @throws IOException if the stream can't be written
+     */
+    public abstract OutputStream compress(OutputStream output) throws IOException;
+
+    /**
+     * @return the name of the compression as an HTTP content coding
+     */
+    @Override
+    public String toString()
+    {
+        return this.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse an HTTP content coding, ignoring case.
+     *
+     * @param coding the content coding, or <code>null</code> if there's none
+     * @return the compression
+     * @throws IllegalArgumentException if the coding isn't supported
+     */
+    public static Compression fromString(String coding)
+    {
+        if (coding == null || coding.trim().isEmpty())
+            return IDENTITY;
+
+        return Compression.valueOf(coding.trim().toUpperCase(Locale.ROOT));
+    }
+}
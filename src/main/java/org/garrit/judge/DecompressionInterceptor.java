@@ -0,0 +1,124 @@
+package org.garrit.judge;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.NotSupportedException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+
+/**
+ * Decompress request bodies sent with a <code>Content-Encoding</code>, as
+ * they're read. Bodies compressed with gzip or deflate are usually
+ * decompressed by the server before they get here; this covers the rest of
+ * the {@link Compression compression schemes} supported.
+ *
+ * Decompressed bodies are refused once they grow past a limit, so that a small
+ * compressed body can't exhaust the judge's memory.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Provider
+public class DecompressionInterceptor implements ReaderInterceptor
+{
+    /**
+     * The largest a body may grow to once decompressed.
+     */
+    private final long maxBytes;
+
+    /**
+     * @param maxBytes the largest a body may grow to once decompressed
+     */
+    public DecompressionInterceptor(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException
+    {
+        String coding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+
+        Compression compression;
+        try
+        {
+            compression = Compression.fromString(coding);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new NotSupportedException("Unsupported content encoding: " + coding);
+        }
+
+        if (compression != Compression.IDENTITY)
+        {
+            context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+            context.setInputStream(new LimitedInputStream(compression.decompress(context.getInputStream()),
+                    this.maxBytes));
+        }
+
+        return context.proceed();
+    }
+
+    /**
+     * A stream which refuses the request once more than a limit has been read
+     * from it.
+     */
+    private static class LimitedInputStream extends FilterInputStream
+    {
+        private long remaining;
+
+        LimitedInputStream(InputStream input, long limit)
+        {
+            super(input);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = super.read();
+            if (read != -1)
+                this.consumed(1);
+
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            int read = super.read(buffer, offset, length);
+            if (read > 0)
+                this.consumed(read);
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = super.skip(n);
+            this.consumed(skipped);
+
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+
+        private void consumed(long bytes)
+        {
+            this.remaining -= bytes;
+            if (this.remaining < 0)
+                throw new WebApplicationException("Decompressed body too large", Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package org.garrit.judge;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Run deliveries to the negotiator, a bounded number at a time.
+ *
+ * With a concurrency of one on platform threads, each delivery runs on the
+ * thread dispatching it, so deliveries happen one after another. Otherwise
+ * each runs on a thread of its own, either from a pool of platform threads
+ * or a new virtual thread, which costs little enough that hundreds of
+ * deliveries can wait on the negotiator at once. Dispatching blocks while the
+ * limit is reached.
+ *
+ * Virtual threads are only used from JDK 24. Before then, a virtual thread
+ * blocking inside a <code>synchronized</code> block holds on to its carrier
+ * thread, and the HTTP client and logging both block inside them, so a few
+ * deliveries could tie up every carrier and deadlock.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Slf4j
+public class DeliveryDispatcher implements Closeable
+{
+    /**
+     * The kind of thread deliveries run on.
+     */
+    public enum Threads
+    {
+        PLATFORM,
+        /**
+         * Virtual threads, falling back to platform threads before JDK 24.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * A delivery to run.
+     */
+    public interface Delivery
+    {
+        /**
+         * @throws InterruptedException if interrupted, in which case the
+         *             delivery is abandoned
+         */
+        void deliver() throws InterruptedException;
+    }
+
+    /**
+     * The first JDK whose virtual threads don't pin their carriers inside
+     * <code>synchronized</code> blocks.
+     */
+    static final int VIRTUAL_THREAD_FEATURE = 24;
+
+    private final Semaphore permits;
+    /**
+     * Runs deliveries, or <code>null</code> if they run on the dispatching
+     * thread.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * @param threads the kind of thread deliveries run on
+     * @param concurrency the most deliveries which may run at once
+     */
+    public DeliveryDispatcher(Threads threads, int concurrency)
+    {
+        this.permits = new Semaphore(concurrency);
+
+        ExecutorService executor = null;
+        if (threads == Threads.VIRTUAL)
+        {
+            executor = DeliveryDispatcher.newVirtualThreadExecutor();
+            if (executor == null)
+                log.warn("Virtual threads need JDK {} or later; delivering on platform threads",
+                        VIRTUAL_THREAD_FEATURE);
+        }
+
+        if (executor == null && concurrency > 1)
+        {
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "Negotiator delivery thread " + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        this.executor = executor;
+    }
+
+    /**
+     * Run a delivery, waiting for room if too many are already running.
+     *
+     * @param delivery the delivery
+     * @throws InterruptedException if interrupted while waiting, or if the
+     *             dispatcher has been closed
+     */
+    public void dispatch(Delivery delivery) throws InterruptedException
+    {
+        if (this.executor == null)
+        {
+            delivery.deliver();
+            return;
+        }
+
+        this.permits.acquire();
+        try
+        {
+            this.executor.execute(() -> {
+                try
+                {
+                    delivery.deliver();
+                }
+                catch (InterruptedException e)
+                {
+                    /* We're shutting down; anything undelivered stays
+                     * journaled. */
+                }
+                finally
+                {
+                    this.permits.release();
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.permits.release();
+            throw new InterruptedException("Dispatcher has been closed");
+        }
+    }
+
+    /**
+     * Abandon any deliveries still waiting to retry, and wait for those in
+     * progress to finish.
+     */
+    @Override
+    public void close()
+    {
+        this.close(0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Give deliveries already dispatched a while to finish, then abandon any
+     * still waiting to retry, and wait for those in progress to finish.
+     *
+     * @param timeout how long to give deliveries
+     * @param unit the unit of the timeout
+     */
+    public void close(long timeout, TimeUnit unit)
+    {
+        if (this.executor == null)
+            return;
+
+        this.executor.shutdown();
+        try
+        {
+            if (!this.executor.awaitTermination(timeout, unit))
+            {
+                this.executor.shutdownNow();
+                this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Create an executor starting a virtual thread for each task. Virtual
+     * threads are found by reflection, so that the judge still runs on older
+     * JDKs.
+     *
+     * @return the executor, or <code>null</code> if virtual threads aren't
+     *         available or aren't safe to use
+     */
+    static ExecutorService newVirtualThreadExecutor()
+    {
+        try
+        {
+            Object version = Runtime.class.getMethod("version").invoke(null);
+            if ((Integer) version.getClass().getMethod("feature").invoke(version) < VIRTUAL_THREAD_FEATURE)
+                return null;
+
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            Method factory = builderClass.getMethod("factory");
+
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = name.invoke(builder, "Negotiator delivery thread ", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) factory.invoke(builder);
+
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;
+        }
+    }
+}
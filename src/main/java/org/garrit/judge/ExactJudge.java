@@ -0,0 +1,117 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+
+/**
+ * The exact judge performs a byte-by-byte comparison between the problem case
+ * and execution output, for problems whose output isn't text.
+ * 
+ * The marked value for each case is boolean: 1/1 if the outputs are
+ * identical, 0/1 if they aren't.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ExactJudge extends Judge
+{
+    /**
+     * Register the exact judge as <code>exact</code>.
+     */
+    public static class Provider implements JudgeProvider
+    {
+        @Override
+        public String getName()
+        {
+            return "exact";
+        }
+
+        @Override
+        public Judge newJudge(JudgeSettings settings)
+        {
+            return new ExactJudge();
+        }
+    }
+
+    public ExactJudge()
+    {
+        super();
+    }
+
+    public ExactJudge(Execution execution)
+    {
+        super(execution);
+    }
+
+    @Override
+    public JudgementCase evaluate(ProblemCase problemCase, ExecutionCase executionCase) throws IOException
+    {
+        if (executionCase == null)
+            throw new IOException("No execution for case");
+
+        JudgementCase judgementCase = new JudgementCase(executionCase);
+        judgementCase.setValue(1);
+        judgementCase.setValueMin(0);
+        judgementCase.setValueMax(1);
+
+        if (!Judge.expectedOutput(problemCase).equals(Judge.actualOutput(executionCase)))
+            judgementCase.setValue(0);
+
+        return judgementCase;
+    }
+
+    @Override
+    public JudgementCase evaluateIdentical(ExecutionCase executionCase)
+    {
+        return CaseStream.verdict(executionCase, true);
+    }
+
+    @Override
+    public CaseStream stream(ProblemCase problemCase)
+    {
+        return new Stream(Judge.expectedOutput(problemCase));
+    }
+
+    /**
+     * Compare each chunk with the next part of the expected output.
+     */
+    private static class Stream extends CaseStream
+    {
+        private final ByteBuffer expected;
+        private int position;
+        private boolean matches = true;
+
+        Stream(ByteBuffer expected)
+        {
+            this.expected = expected;
+            this.position = expected.position();
+        }
+
+        @Override
+        public boolean write(ByteBuffer chunk)
+        {
+            if (!this.matches)
+                return false;
+
+            if (chunk.remaining() > this.expected.limit() - this.position)
+                return this.matches = false;
+
+            for (int k = chunk.position(); k < chunk.limit(); k++)
+                if (chunk.get(k) != this.expected.get(this.position++))
+                    return this.matches = false;
+
+            return true;
+        }
+
+        @Override
+        public JudgementCase finish(ExecutionCase executionCase)
+        {
+            return CaseStream.verdict(executionCase, this.matches && this.position == this.expected.limit());
+        }
+    }
+}
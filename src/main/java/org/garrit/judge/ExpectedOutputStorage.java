@@ -0,0 +1,27 @@
+package org.garrit.judge;
+
+/**
+ * Where the expected outputs of problem cases are kept while judging.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public enum ExpectedOutputStorage
+{
+    /**
+     * Expected outputs are read onto the heap along with the rest of the
+     * problem definition.
+     */
+    HEAP,
+    /**
+     * Expected outputs are memory-mapped straight from the problem directory,
+     * keeping them off the heap.
+     */
+    MAPPED,
+    /**
+     * Expected outputs are read from the problem directory as each case is
+     * judged, and dropped once it's been judged, so that only the cases being
+     * judged take up memory.
+     */
+    LAZY
+}
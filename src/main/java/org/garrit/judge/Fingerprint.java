@@ -0,0 +1,68 @@
+package org.garrit.judge;
+
+import java.nio.ByteBuffer;
+
+import lombok.Value;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * The length and 128-bit hash of an output, for telling cheaply whether two
+ * outputs are identical. Different outputs of the same length share a hash
+ * with a probability of around 2<sup>-128</sup>.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Value
+public class Fingerprint
+{
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    /**
+     * The most of an off-heap output copied onto the heap at once for
+     * hashing.
+     */
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    long length;
+    HashCode hash;
+
+    /**
+     * Fingerprint an output, between its position and limit.
+     *
+     * @param output the output
+     * @return the output's fingerprint
+     */
+    public static Fingerprint of(ByteBuffer output)
+    {
+        if (output.hasArray())
+            return new Fingerprint(output.remaining(),
+                    HASH.hashBytes(output.array(), output.arrayOffset() + output.position(), output.remaining()));
+
+        Hasher hasher = HASH.newHasher();
+        byte[] chunk = new byte[Math.min(CHUNK_BYTES, output.remaining())];
+        ByteBuffer remaining = output.duplicate();
+        while (remaining.hasRemaining())
+        {
+            int length = Math.min(chunk.length, remaining.remaining());
+            remaining.get(chunk, 0, length);
+            hasher.putBytes(chunk, 0, length);
+        }
+
+        return new Fingerprint(output.remaining(), hasher.hash());
+    }
+
+    /**
+     * Fingerprint an output.
+     *
+     * @param output the output
+     * @return the output's fingerprint
+     */
+    public static Fingerprint of(byte[] output)
+    {
+        return new Fingerprint(output.length, HASH.hashBytes(output));
+    }
+}
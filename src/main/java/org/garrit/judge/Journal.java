@@ -0,0 +1,317 @@
+package org.garrit.judge;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append-only write-ahead log of messages awaiting delivery.
+ *
+ * Entries and their acknowledgements are appended to segment files, which are
+ * deleted once every entry in them (and in every older segment) has been
+ * acknowledged. Writes are forced to disk at most once per sync interval, so
+ * a crash loses at most that much of the log. Entries left unacknowledged
+ * when the log was last closed are available for replay on opening.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Slf4j
+public class Journal implements Closeable
+{
+    private static final byte ENTRY = 'E';
+    private static final byte ACK = 'A';
+    /**
+     * Length, type and sequence number before the payload; checksum after.
+     */
+    private static final int HEADER_BYTES = 4 + 1 + 8;
+    private static final int TRAILER_BYTES = 4;
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    /**
+     * Segments, by the sequence number of their first entry.
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment current;
+    private FileChannel channel;
+    private long nextSequence = 0;
+    private boolean dirty = false;
+
+    /**
+     * Unacknowledged entries found when the log was opened.
+     */
+    private final LinkedHashMap<Long, byte[]> unacknowledged = new LinkedHashMap<>();
+
+    private final ScheduledExecutorService syncer;
+
+    /**
+     * Open a log, reading back any existing segments.
+     *
+     * @param directory the directory holding the segment files
+     * @param segmentBytes the size at which to start a new segment
+     * @param syncIntervalMillis the longest a write may go without being
+     *            forced to disk
+     * @throws IOException if the log can't be read or created
+     */
+    public Journal(Path directory, long segmentBytes, long syncIntervalMillis) throws IOException
+    {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+
+        this.read();
+        this.delete();
+        this.roll();
+
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Journal sync thread: " + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncer.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the entries which were unacknowledged when the log was opened,
+     *         by sequence number, in the order they were appended
+     */
+    public synchronized Map<Long, byte[]> replay()
+    {
+        return new LinkedHashMap<>(this.unacknowledged);
+    }
+
+    /**
+     * Append an entry to the log.
+     *
+     * @param payload the entry
+     * @return the sequence number of the entry, for acknowledgement
+     * @throws IOException if the entry can't be written
+     */
+    public synchronized long append(byte[] payload) throws IOException
+    {
+        if (this.channel.size() >= this.segmentBytes)
+            this.roll();
+
+        long sequence = this.nextSequence++;
+        this.write(ENTRY, sequence, payload);
+        this.current.outstanding++;
+
+        return sequence;
+    }
+
+    /**
+     * Acknowledge an entry, so that it won't be replayed.
+     *
+     * @param sequence the sequence number of the entry
+     * @throws IOException if the acknowledgement can't be written
+     */
+    public synchronized void acknowledge(long sequence) throws IOException
+    {
+        Map.Entry<Long, Segment> segment = this.segments.floorEntry(sequence);
+        if (segment == null)
+            return;
+
+        this.write(ACK, sequence, new byte[0]);
+        this.unacknowledged.remove(sequence);
+        segment.getValue().outstanding--;
+
+        this.delete();
+    }
+
+    /**
+     * Force any outstanding writes to disk.
+     */
+    public synchronized void sync()
+    {
+        if (!this.dirty)
+            return;
+
+        try
+        {
+            this.channel.force(false);
+            this.dirty = false;
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to sync journal", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        this.syncer.shutdown();
+        this.sync();
+        this.channel.close();
+    }
+
+    private void write(byte type, long sequence, byte[] payload) throws IOException
+    {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length + TRAILER_BYTES);
+        record.putInt(payload.length);
+        record.put(type);
+        record.putLong(sequence);
+        record.put(payload);
+        record.putInt(Journal.checksum(type, sequence, payload));
+        record.flip();
+
+        while (record.hasRemaining())
+            this.channel.write(record);
+
+        this.dirty = true;
+    }
+
+    /**
+     * Start a new segment.
+     */
+    private void roll() throws IOException
+    {
+        if (this.channel != null)
+        {
+            this.channel.force(false);
+            this.channel.close();
+        }
+
+        /* A segment holding only acknowledgements may already be named for
+         * the next sequence number, so skip past it. */
+        while (this.segments.containsKey(this.nextSequence))
+            this.nextSequence++;
+
+        Path path = this.directory.resolve(String.format("%020d%s", this.nextSequence, SUFFIX));
+        this.current = new Segment(path);
+        this.segments.put(this.nextSequence, this.current);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.dirty = false;
+    }
+
+    /**
+     * Delete the oldest segments for as long as they have no unacknowledged
+     * entries. Acknowledgements may be written to a later segment than their
+     * entries, so segments are only ever deleted oldest first.
+     */
+    private void delete() throws IOException
+    {
+        while (!this.segments.isEmpty())
+        {
+            Map.Entry<Long, Segment> oldest = this.segments.firstEntry();
+            if (oldest.getValue() == this.current || oldest.getValue().outstanding > 0)
+                break;
+
+            Files.deleteIfExists(oldest.getValue().path);
+            this.segments.remove(oldest.getKey());
+        }
+    }
+
+    /**
+     * Read back existing segments, stopping at the first incomplete or
+     * corrupt record in each. A record is never read past the end of its
+     * segment, so that a corrupt length can't have a huge payload allocated
+     * for it.
+     */
+    private void read() throws IOException
+    {
+        ArrayList<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SUFFIX))
+        {
+            files.forEach(paths::add);
+        }
+        paths.sort(null);
+
+        for (Path path : paths)
+        {
+            String name = path.getFileName().toString();
+            long first = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+
+            Segment segment = new Segment(path);
+            this.segments.put(first, segment);
+            long remaining = Files.size(path);
+
+            try (InputStream file = Files.newInputStream(path);
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(file)))
+            {
+                while (true)
+                {
+                    int length = in.readInt();
+                    byte type = in.readByte();
+                    long sequence = in.readLong();
+                    remaining -= HEADER_BYTES;
+                    if (length < 0 || length > remaining - TRAILER_BYTES)
+                    {
+                        log.warn("Torn or corrupt record in journal segment {}; ignoring the rest of it", path);
+                        break;
+                    }
+                    remaining -= length + TRAILER_BYTES;
+
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+
+                    if (in.readInt() != Journal.checksum(type, sequence, payload))
+                    {
+                        log.warn("Corrupt record in journal segment {}; ignoring the rest of it", path);
+                        break;
+                    }
+
+                    this.nextSequence = Math.max(this.nextSequence, sequence + 1);
+
+                    if (type == ENTRY)
+                    {
+                        this.unacknowledged.put(sequence, payload);
+                        segment.outstanding++;
+                    }
+                    else if (type == ACK && this.unacknowledged.remove(sequence) != null)
+                        this.segments.floorEntry(sequence).getValue().outstanding--;
+                }
+            }
+            catch (EOFException e)
+            {
+                /* We've reached the end of the segment, possibly part-way
+                 * through a record which was never completely written. */
+            }
+        }
+    }
+
+    private static int checksum(byte type, long sequence, byte[] payload)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(8).putLong(0, sequence).array());
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+
+    private static class Segment
+    {
+        final Path path;
+        /**
+         * The number of entries in the segment yet to be acknowledged.
+         */
+        int outstanding = 0;
+
+        Segment(Path path)
+        {
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A queue of messages awaiting delivery, optionally backed by a
+ * {@link Journal journal} so that messages survive a restart until they're
+ * {@link #acknowledge acknowledged}. Every message queued is expected to be
+ * acknowledged once it's been taken and dealt with.
+ *
+ * The queue keeps track of how long its oldest unacknowledged message has been
+ * waiting, including messages taken but still being delivered, so that a
+ * stalled delivery shows up even while the queue itself is empty.
+ *
+ * Rather than being a {@link java.util.concurrent.BlockingQueue} itself, it
+ * wraps one, so that {@link #offer} is the only way in and no message can
+ * enter without being journaled.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Slf4j
+public class JournaledQueue<E>
+{
+    private final LinkedBlockingQueue<E> queue = new LinkedBlockingQueue<>();
+    private final Journal journal;
+    private final ObjectMapper mapper;
+    /**
+     * Queued and in-flight messages, each time they were queued. The same
+     * message may be queued more than once.
+     */
+    private final IdentityHashMap<E, ArrayDeque<Pending>> pending = new IdentityHashMap<>();
+    /**
+     * When each unacknowledged message was queued, from
+     * {@link System#nanoTime()}, in the order they were queued.
+     */
+    private final ConcurrentSkipListMap<Long, Long> queuedTimes = new ConcurrentSkipListMap<>();
+    private final AtomicLong tickets = new AtomicLong();
+
+    /**
+     * Create a queue held only in memory.
+     */
+    public JournaledQueue()
+    {
+        this.journal = null;
+        this.mapper = null;
+    }
+
+    /**
+     * Create a queue backed by a journal, replaying any messages left
+     * unacknowledged in it.
+     *
+     * @param journal the journal
+     * @param mapper the mapper used to encode messages in the journal
+     * @param type the type of message
+     */
+    public JournaledQueue(Journal journal, ObjectMapper mapper, JavaType type)
+    {
+        this.journal = journal;
+        this.mapper = mapper;
+
+        for (Map.Entry<Long, byte[]> entry : journal.replay().entrySet())
+        {
+            try
+            {
+                E message = mapper.readValue(entry.getValue(), type);
+                this.track(message, entry.getKey());
+                this.queue.offer(message);
+            }
+            catch (IOException e)
+            {
+                log.error("Failed to decode journaled message; dropping it", e);
+            }
+        }
+
+        if (this.size() > 0)
+            log.info("Replayed {} undelivered messages from journal", this.size());
+    }
+
+    /**
+     * Queue a message, journaling it first if the queue is journaled.
+     *
+     * @param message the message
+     * @return <code>true</code>, as the queue is unbounded
+     */
+    public boolean offer(E message)
+    {
+        this.record(message);
+        return this.queue.offer(message);
+    }
+
+    /**
+     * Take the next message, waiting for one if need be.
+     *
+     * @return the message
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take() throws InterruptedException
+    {
+        return this.queue.take();
+    }
+
+    /**
+     * @return the next message, or <code>null</code> if there's none
+     */
+    public E poll()
+    {
+        return this.queue.poll();
+    }
+
+    /**
+     * Take the next message, waiting up to a time limit for one.
+     *
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the message, or <code>null</code> if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return this.queue.poll(timeout, unit);
+    }
+
+    /**
+     * @return the next message, left in the queue, or <code>null</code> if
+     *         there's none
+     */
+    public E peek()
+    {
+        return this.queue.peek();
+    }
+
+    /**
+     * @return how many messages are waiting to be taken
+     */
+    public int size()
+    {
+        return this.queue.size();
+    }
+
+    /**
+     * Mark a message taken from the queue as delivered.
+     *
+     * @param message the message
+     */
+    public void acknowledge(E message)
+    {
+        Pending pending;
+        synchronized (this.pending)
+        {
+            ArrayDeque<Pending> queued = this.pending.get(message);
+            if (queued == null)
+                return;
+
+            pending = queued.poll();
+            if (queued.isEmpty())
+                this.pending.remove(message);
+        }
+
+        this.queuedTimes.remove(pending.ticket);
+
+        if (this.journal == null || pending.sequence == null)
+            return;
+
+        try
+        {
+            this.journal.acknowledge(pending.sequence);
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to acknowledge journaled message", e);
+        }
+    }
+
+    /**
+     * @return how long, in nanoseconds, the oldest unacknowledged message has
+     *         been waiting, or 0 if there's none
+     */
+    public long oldestAge()
+    {
+        Map.Entry<Long, Long> oldest = this.queuedTimes.firstEntry();
+        if (oldest == null)
+            return 0;
+
+        return Math.max(0, System.nanoTime() - oldest.getValue());
+    }
+
+    private void record(E message)
+    {
+        Long sequence = null;
+        if (this.journal != null)
+        {
+            try
+            {
+                sequence = this.journal.append(this.mapper.writeValueAsBytes(message));
+            }
+            catch (IOException e)
+            {
+                log.error("Failed to journal message; it will be lost if not delivered before a restart", e);
+            }
+        }
+
+        this.track(message, sequence);
+    }
+
+    private void track(E message, Long sequence)
+    {
+        Pending pending = new Pending(this.tickets.getAndIncrement(), sequence);
+        this.queuedTimes.put(pending.ticket, System.nanoTime());
+
+        synchronized (this.pending)
+        {
+            this.pending.computeIfAbsent(message, key -> new ArrayDeque<>()).add(pending);
+        }
+    }
+
+    /**
+     * A single queuing of a message.
+     */
+    private static class Pending
+    {
+        final long ticket;
+        /**
+         * The message's sequence number in the journal, or <code>null</code>
+         * if it isn't journaled.
+         */
+        final Long sequence;
+
+        Pending(long ticket, Long sequence)
+        {
+            this.ticket = ticket;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package org.garrit.judge;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import lombok.Getter;
 
@@ -13,6 +18,10 @@ import org.garrit.common.messages.JudgementCase;
  * A judge compares the output of each {@link ExecutionCase case} of an
  * {@link Execution execution} to the expected output given in the
  * {@link ProblemCase problem case}.
+ * 
+ * A judge may be set up for a single execution, or shared between every
+ * execution of a problem, in which case execution cases are given to it
+ * directly.
  *
  * @author Samuel Coleman <samuel@seenet.ca>
  * @since 1.0.0
@@ -21,6 +30,16 @@ public abstract class Judge
 {
     @Getter
     private final Execution execution;
+    private final Map<String, ExecutionCase> executionCases;
+
+    /**
+     * Set up a judge to be shared between executions.
+     */
+    public Judge()
+    {
+        this.execution = null;
+        this.executionCases = Collections.emptyMap();
+    }
 
     /**
      * Set up the judge for a given execution.
@@ -30,14 +49,138 @@ public abstract class Judge
     public Judge(Execution execution)
     {
         this.execution = execution;
+        this.executionCases = Judge.casesByName(execution);
     }
 
     /**
-     * Evaluate the execution for a given problem case.
+     * Evaluate the execution the judge was set up for against a given problem
+     * case.
      * 
      * @param problemCase the problem case
      * @return the result of problem judgement
      * @throws IOException if an error occurs while judging
      */
-    public abstract JudgementCase evaluate(ProblemCase problemCase) throws IOException;
+    public JudgementCase evaluate(ProblemCase problemCase) throws IOException
+    {
+        return this.evaluate(problemCase, this.executionCases.get(problemCase.getName()));
+    }
+
+    /**
+     * Evaluate an execution case against a problem case. Judges are shared
+     * between executions, and cases of large problems may be evaluated
+     * concurrently, so implementations must be safe to call from several
+     * threads at once.
+     * 
+     * @param problemCase the problem case
+     * @param executionCase the corresponding execution case, or
+     *            <code>null</code> if the execution has none
+     * @return the result of problem judgement
+     * @throws IOException if an error occurs while judging
+     */
+    public abstract JudgementCase evaluate(ProblemCase problemCase, ExecutionCase executionCase) throws IOException;
+
+    /**
+     * Judge an execution case whose output is known to be identical to the
+     * expected output, without comparing them. Judges which may reject
+     * identical output, or need to see it to judge it, return
+     * <code>null</code> so that the output is {@link #evaluate evaluated} as
+     * usual.
+     * 
+     * @param executionCase the execution case
+     * @return the result of problem judgement, or <code>null</code> if the
+     *         output must be evaluated
+     */
+    public JudgementCase evaluateIdentical(ExecutionCase executionCase)
+    {
+        return null;
+    }
+
+    /**
+     * Start judging the output of a case incrementally, as it arrives. Judges
+     * which can't judge incrementally collect the whole output and evaluate
+     * it at the end.
+     * 
+     * @param problemCase the problem case
+     * @return a stream accepting the output of the execution case
+     */
+    public CaseStream stream(ProblemCase problemCase)
+    {
+        return new CaseStream.Buffered(this, problemCase);
+    }
+
+    /**
+     * Index the cases of an execution by name.
+     * 
+     * @param execution the execution
+     * @return the execution cases
+     */
+    public static Map<String, ExecutionCase> casesByName(Execution execution)
+    {
+        HashMap<String, ExecutionCase> executionCases = new HashMap<>();
+        for (ExecutionCase executionCase : execution.getCases())
+            executionCases.put(executionCase.getName(), executionCase);
+
+        return executionCases;
+    }
+
+    /**
+     * Retrieve the expected output of a problem case as a buffer, without
+     * copying it onto the heap if it's been {@link MappedProblemCase mapped},
+     * and reading it from disk if it's been {@link LazyProblemCase left there}.
+     * The buffer is independent of any other returned for the same case.
+     * 
+     * @param problemCase the problem case
+     * @return the expected output
+     * @throws UncheckedIOException if the expected output can't be read
+     */
+    public static ByteBuffer expectedOutput(ProblemCase problemCase)
+    {
+        if (problemCase instanceof MappedProblemCase)
+            return ((MappedProblemCase) problemCase).getOutputBuffer();
+
+        if (problemCase instanceof LazyProblemCase)
+        {
+            try
+            {
+                return ((LazyProblemCase) problemCase).readOutput();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return ByteBuffer.wrap(problemCase.getOutput());
+    }
+
+    /**
+     * Retrieve the output of an execution case as a buffer.
+     * 
+     * @param executionCase the execution case
+     * @return the output
+     * @throws IOException if the case carries no output, as when it was
+     *             streamed but its verdict has since expired
+     */
+    public static ByteBuffer actualOutput(ExecutionCase executionCase) throws IOException
+    {
+        if (executionCase.getOutput() == null)
+            throw new IOException("No output for case " + executionCase.getName());
+
+        return ByteBuffer.wrap(executionCase.getOutput());
+    }
+
+    /**
+     * Determine the size of the expected output of a problem case, without
+     * reading it if it's been {@link LazyProblemCase left on disk}.
+     * 
+     * @param problemCase the problem case
+     * @return the size of the expected output, in bytes
+     */
+    public static long expectedLength(ProblemCase problemCase)
+    {
+        if (problemCase instanceof LazyProblemCase)
+            return ((LazyProblemCase) problemCase).getLength();
+
+        return Judge.expectedOutput(problemCase).remaining();
+    }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package org.garrit.judge;
 
 import io.dropwizard.Application;
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.setup.Environment;
 
 import org.garrit.common.messages.statuses.Status;
 
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+
 /**
  * Main entry point for the judge service.
  *
@@ -30,21 +34,25 @@ public class JudgeApplication extends Application<JudgeConfiguration>
     @Override
     public void run(JudgeConfiguration config, Environment env) throws Exception
     {
-        this.judge = new JudgementManager(config.getProblems(), config.getNegotiator());
+        this.judge = new JudgementManager(config, env.metrics());
 
         this.status = new Status(config.getName());
         this.status.setCapabilityStatus(this.judge);
 
         final StatusResource statusResource = new StatusResource(this.status);
-        final JudgeResource judgeResource = new JudgeResource(this.judge);
+        final JudgeResource judgeResource = new JudgeResource(this.judge, this.judge.getRouter(),
+                config.getRetryAfter().toSeconds());
 
+        env.jersey().register(new JacksonSmileProvider(Jackson.newObjectMapper(new SmileFactory())));
+        env.jersey().register(new DecompressionInterceptor(config.getMaxDecompressedBody().toBytes()));
         env.jersey().register(statusResource);
         env.jersey().register(judgeResource);
 
-        final StatusHealthCheck statusHealthCheck = new StatusHealthCheck(status);
+        final StatusHealthCheck statusHealthCheck = new StatusHealthCheck(status, this.judge,
+                config.getMaxQueueAge(), config.getMaxReportingLag());
 
         env.healthChecks().register("status", statusHealthCheck);
 
-        this.judge.start();
+        env.lifecycle().manage(this.judge);
     }
 }
\ No newline at end of file
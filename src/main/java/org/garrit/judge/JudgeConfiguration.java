@@ -1,9 +1,16 @@
 package org.garrit.judge;
 
 import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -14,5 +21,261 @@ public class JudgeConfiguration extends Configuration
 {
     private String name;
     private URI negotiator;
+
+    /**
+     * The maximum number of connections kept open to the negotiator.
+     */
+    @Min(1)
+    private int negotiatorConnections = 8;
+
+    /**
+     * How long to wait for a connection to the negotiator.
+     */
+    @NotNull
+    private Duration negotiatorConnectTimeout = Duration.seconds(5);
+
+    /**
+     * How long to wait for the negotiator to respond.
+     */
+    @NotNull
+    private Duration negotiatorTimeout = Duration.seconds(30);
+
+    /**
+     * The encoding in which messages are sent to the negotiator.
+     */
+    @NotNull
+    private WireFormat negotiatorFormat = WireFormat.JSON;
+
+    /**
+     * The maximum number of judgements reported to the negotiator at once.
+     * One disables batching.
+     */
+    @Min(1)
+    private int reportBatchSize = 100;
+
+    /**
+     * The maximum encoded size of a batch of judgements.
+     */
+    @NotNull
+    private Size reportBatchBytes = Size.megabytes(1);
+
+    /**
+     * How long to hold a judgement back waiting for others to batch with it.
+     */
+    @NotNull
+    private Duration reportBatchLinger = Duration.milliseconds(10);
+
+    /**
+     * The most reports and errors which may be in flight to the negotiator at
+     * once.
+     */
+    @Min(1)
+    private int reportConcurrency = 1;
+
+    /**
+     * The kind of thread reports and errors are delivered on. Virtual threads
+     * need JDK 24 or later.
+     */
+    @NotNull
+    private DeliveryDispatcher.Threads reportThreads = DeliveryDispatcher.Threads.PLATFORM;
+
+    /**
+     * How long to wait before first retrying delivery to the negotiator. The
+     * wait doubles with each further attempt, up to the maximum.
+     */
+    @NotNull
+    private Duration retryBackoff = Duration.milliseconds(100);
+
+    @NotNull
+    private Duration retryMaxBackoff = Duration.seconds(30);
+
+    /**
+     * How long to keep delivering judgements and errors left over once
+     * judging stops on shutdown.
+     */
+    @NotNull
+    private Duration shutdownTimeout = Duration.seconds(30);
+
+    /**
+     * The directory in which to journal judgements and errors until they're
+     * delivered to the negotiator, or <code>null</code> to hold them only in
+     * memory.
+     */
+    private Path journal;
+
+    /**
+     * The size at which journal segment files are rolled over.
+     */
+    @NotNull
+    private Size journalSegmentSize = Size.megabytes(64);
+
+    /**
+     * The longest a journal write may go without being forced to disk.
+     */
+    @NotNull
+    private Duration journalSyncInterval = Duration.milliseconds(10);
+
     private Path problems;
-}
\ No newline at end of file
+
+    /**
+     * The most executions which may wait to be judged at once.
+     */
+    @Min(1)
+    private int maxQueuedSubmissions = 10000;
+
+    /**
+     * The most execution output which may wait to be judged at once.
+     */
+    @NotNull
+    private Size maxQueuedBytes = Size.megabytes(512);
+
+    /**
+     * How long executors are asked to wait before resubmitting an execution
+     * turned away because the queue is full.
+     */
+    @NotNull
+    private Duration retryAfter = Duration.seconds(5);
+
+    /**
+     * How long a queued execution may wait in its priority before it's
+     * promoted to the priority above.
+     */
+    @NotNull
+    private Duration starvationThreshold = Duration.seconds(30);
+
+    /**
+     * How long the oldest queued execution may wait before the judge reports
+     * itself unhealthy.
+     */
+    @NotNull
+    private Duration maxQueueAge = Duration.minutes(5);
+
+    /**
+     * How long the oldest judgement or error may wait to be reported before
+     * the judge reports itself unhealthy.
+     */
+    @NotNull
+    private Duration maxReportingLag = Duration.minutes(5);
+
+    /**
+     * How long verdicts on streamed case output are kept waiting for their
+     * execution to be submitted.
+     */
+    @NotNull
+    private Duration streamTimeout = Duration.minutes(10);
+
+    /**
+     * The most executions whose streamed verdicts are kept waiting at once.
+     * Beyond this, the execution streamed to longest ago is forgotten.
+     */
+    @Min(1)
+    private int maxStreamedExecutions = 10000;
+
+    /**
+     * How much longer than its expected output the output of a streamed or
+     * compressed case may run before it's failed without reading the rest.
+     */
+    @NotNull
+    private Size maxExcessOutput = Size.megabytes(1);
+
+    /**
+     * The largest a compressed request body may grow to once decompressed.
+     */
+    @NotNull
+    private Size maxDecompressedBody = Size.megabytes(256);
+
+    /**
+     * The number of threads judging executions concurrently.
+     */
+    @Min(1)
+    private int judgementThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of threads shared by all executions for judging the cases of
+     * a single execution in parallel. Zero judges cases serially on the
+     * judgement thread.
+     */
+    @Min(0)
+    private int caseThreads = 0;
+
+    /**
+     * The total size of a problem's expected output at which its cases are
+     * judged in parallel. Smaller problems are judged serially, as they'd
+     * spend more time being scheduled than being judged.
+     */
+    @NotNull
+    private Size parallelCaseThreshold = Size.megabytes(1);
+
+    /**
+     * The total size of expected outputs to keep cached in memory.
+     */
+    @NotNull
+    private Size problemCacheSize = Size.megabytes(256);
+
+    /**
+     * The most problems to keep cached. This is what bounds problems whose
+     * expected outputs are mapped or read from disk, as they take no heap.
+     */
+    @Min(1)
+    private int problemCacheProblems = 1024;
+
+    /**
+     * Where expected outputs are kept while judging.
+     */
+    @NotNull
+    private ExpectedOutputStorage expectedOutputs = ExpectedOutputStorage.HEAP;
+
+    /**
+     * The location of expected output files within the problem path, used
+     * when expected outputs aren't loaded onto the heap. <code>{problem}</code>
+     * stands for the problem name and <code>{case}</code> for the case name.
+     */
+    @NotNull
+    private String expectedOutputPattern = "{problem}/cases/{case}/output";
+
+    /**
+     * The number of case results to remember, so that identical output isn't
+     * judged twice; 0 disables the cache.
+     */
+    @Min(0)
+    private int resultCacheSize = 100000;
+
+    /**
+     * The directory in which to keep cached case results so that they survive
+     * restarts, or <code>null</code> to keep them only in memory.
+     */
+    private Path resultCache;
+
+    /**
+     * This judge's address, as its peers reach it. Needed only when sharing
+     * problems with peers.
+     */
+    private URI self;
+
+    /**
+     * The addresses of other judges to share problems with, each problem
+     * being judged only by those it's assigned to. Empty judges every
+     * problem here.
+     */
+    @NotNull
+    private List<URI> peers = new ArrayList<>();
+
+    /**
+     * The number of judges each problem is assigned to.
+     */
+    @Min(1)
+    private int shardReplicas = 1;
+
+    /**
+     * The number of points each judge takes on the ring problems are
+     * assigned by. More points share problems out more evenly.
+     */
+    @Min(1)
+    private int shardVirtualNodes = 128;
+
+    /**
+     * The maximum number of connections kept open to each peer.
+     */
+    @Min(1)
+    private int peerConnections = 8;
+}
@@ -1,24 +1,144 @@
 package org.garrit.judge;
 
-import org.garrit.common.messages.Execution;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 /**
  * Provide access to {@link Judge judges}.
  *
+ * Judges are registered by {@link JudgeProvider providers} discovered with
+ * {@link ServiceLoader}, and selected per problem by its
+ * {@link JudgeSettings judge settings}. Each problem's judge is set up once
+ * and shared between all of its executions until the problem changes.
+ *
  * @author Samuel Coleman <samuel@seenet.ca>
  * @since 1.0.0
  */
-public class JudgeFactory
+@Slf4j
+public class JudgeFactory implements ProblemCache.InvalidationListener
 {
+    private static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+
+    /**
+     * The path containing problem definitions.
+     */
+    private final Path problems;
+    private final HashMap<String, JudgeProvider> providers = new HashMap<>();
+    /**
+     * Judges and the settings they were set up with, by problem name.
+     */
+    private final ConcurrentHashMap<String, Configured> judges = new ConcurrentHashMap<>();
+
+    public JudgeFactory(Path problems)
+    {
+        this.problems = problems;
+
+        for (JudgeProvider provider : ServiceLoader.load(JudgeProvider.class))
+        {
+            log.info("Registering {} judge", provider.getName());
+            this.providers.put(provider.getName(), provider);
+        }
+    }
+
+    /**
+     * Get the judge for a problem, setting it up if necessary.
+     *
+     * @param problem the problem name
+     * @return the problem's judge
+     * @throws IOException if the problem's judge settings can't be read or
+     *             name an unknown judge
+     */
+    public Judge getJudge(String problem) throws IOException
+    {
+        return this.configure(problem).judge;
+    }
+
+    /**
+     * Get the settings a problem's judge was set up with, setting it up if
+     * necessary.
+     *
+     * @param problem the problem name
+     * @return the settings, or the defaults if the problem has none
+     * @throws IOException if the problem's judge settings can't be read or
+     *             name an unknown judge
+     */
+    public JudgeSettings getSettings(String problem) throws IOException
+    {
+        return this.configure(problem).settings;
+    }
+
+    private Configured configure(String problem) throws IOException
+    {
+        Configured configured = this.judges.get(problem);
+        if (configured != null)
+            return configured;
+
+        JudgeSettings settings = this.readSettings(problem);
+        JudgeProvider provider = this.providers.get(settings.getJudge());
+        if (provider == null)
+            throw new IOException("Unknown judge: " + settings.getJudge());
+
+        Judge judge;
+        try
+        {
+            judge = provider.newJudge(settings);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("Invalid judge settings for " + problem, e);
+        }
+
+        configured = new Configured(judge, settings);
+        Configured existing = this.judges.putIfAbsent(problem, configured);
+        return existing != null ? existing : configured;
+    }
+
     /**
-     * Get a judge suitable for a given execution.
-     * 
-     * @param execution the execution
-     * @return an instance of a suitable judge
+     * Read a problem's judge settings.
+     *
+     * @param problem the problem name
+     * @return the settings, or the defaults if the problem has none
+     * @throws IOException if the settings can't be read
      */
-    public static Judge getJudge(Execution execution)
+    private JudgeSettings readSettings(String problem) throws IOException
+    {
+        Path path = this.problems.resolve(problem).resolve(JudgeSettings.FILE_NAME);
+        if (!Files.exists(path))
+            return new JudgeSettings();
+
+        return YAML.readValue(path.toFile(), JudgeSettings.class);
+    }
+
+    @Override
+    public void invalidated(String problem)
+    {
+        this.judges.remove(problem);
+    }
+
+    @Override
+    public void invalidatedAll()
     {
-        /* Currently, we only have a line-by-line judge. */
-        return new LineJudge(execution);
+        this.judges.clear();
+    }
+
+    private static class Configured
+    {
+        final Judge judge;
+        final JudgeSettings settings;
+
+        Configured(Judge judge, JudgeSettings settings)
+        {
+            this.judge = judge;
+            this.settings = settings;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package org.garrit.judge;
+
+/**
+ * Make a kind of {@link Judge judge} available to problems. Providers are
+ * discovered with {@link java.util.ServiceLoader}, so each must be listed in
+ * <code>META-INF/services/org.garrit.judge.JudgeProvider</code>.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public interface JudgeProvider
+{
+    /**
+     * @return the name by which problems select the judge
+     */
+    String getName();
+
+    /**
+     * Set up a judge to be shared between every execution of a problem.
+     * 
+     * @param settings the problem's judge settings
+     * @return the judge
+     * @throws IllegalArgumentException if the settings are invalid for this
+     *             judge
+     */
+    Judge newJudge(JudgeSettings settings);
+}
@@ -1,36 +1,159 @@
 package org.garrit.judge;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.JudgementCase;
+import org.garrit.judge.SubmissionScheduler.Priority;
+
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
 
 /**
- * Expose judge functionality via HTTP.
+ * Expose judge functionality via HTTP. Messages may be exchanged as JSON or
+ * as Smile, which carries output as raw bytes rather than base64.
+ *
+ * If problems are shared with peers, requests for problems assigned to
+ * another judge are {@link ShardRouter forwarded} to it.
  *
  * @author Samuel Coleman <samuel@seenet.ca>
  * @since 1.0.0
  */
+@Slf4j
 @RequiredArgsConstructor
 @Path("/judge")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({ MediaType.APPLICATION_JSON, SmileMediaTypes.APPLICATION_JACKSON_SMILE })
+@Consumes({ MediaType.APPLICATION_JSON, SmileMediaTypes.APPLICATION_JACKSON_SMILE })
 public class JudgeResource
 {
     private final JudgementManager manager;
+    /**
+     * Shares problems with peers, or <code>null</code> if every problem is
+     * judged here.
+     */
+    private final ShardRouter router;
+    /**
+     * Seconds executors should wait before resubmitting when the queue is
+     * full.
+     */
+    private final long retryAfter;
 
+    /**
+     * Queue an execution for judgement. Executions are judged by priority,
+     * <code>contest</code>, <code>rejudge</code> or <code>practice</code>,
+     * taking turns between submitters. With <code>failFast</code>, judging
+     * stops at the first failed case, overriding the problem's settings. The
+     * output of each case may be compressed, as given by the
+     * <code>Output-Encoding</code> header, and is kept compressed until it's
+     * judged.
+     */
     @POST
-    public Response judgeSubmission(Execution execution)
+    public Response judgeSubmission(@QueryParam("priority") @DefaultValue("contest") String priority,
+            @QueryParam("submitter") String submitter, @QueryParam("failFast") Boolean failFast,
+            @QueryParam(ShardRouter.FORWARDED) boolean forwarded,
+            @HeaderParam(Compression.OUTPUT_HEADER) String outputEncoding, Execution execution)
     {
-        this.manager.enqueue(execution);
+        Priority parsedPriority;
+        try
+        {
+            parsedPriority = Priority.fromString(priority);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new BadRequestException("Unknown priority: " + priority);
+        }
+
+        Compression compression;
+        try
+        {
+            compression = Compression.fromString(outputEncoding);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new BadRequestException("Unknown output encoding: " + outputEncoding);
+        }
+
+        URI owner = this.owner(forwarded, execution.getProblem(), execution.getId());
+        if (owner != null)
+        {
+            try
+            {
+                return this.router.submit(owner, execution, priority, submitter, failFast, compression);
+            }
+            catch (IOException e)
+            {
+                /* Better to judge it here, cold, than not at all. */
+                log.warn("Failed to forward execution {} to {}; judging it here", execution.getId(), owner, e);
+            }
+        }
+
+        if (!this.manager.enqueue(execution, parsedPriority, submitter, failFast, compression))
+            return Response.status(Status.SERVICE_UNAVAILABLE).header("Retry-After", this.retryAfter).build();
 
         return Response.status(Status.ACCEPTED).build();
     }
+
+    /**
+     * Judge the output of a case as it's produced. Executors may send the
+     * output with chunked transfer encoding, and stop running the case as
+     * soon as a verdict comes back, which happens as soon as the output is
+     * known to be wrong. The execution is still submitted as usual once every
+     * case has run, without the output of streamed cases.
+     */
+    @PUT
+    @Path("{id}/cases/{case}")
+    @Consumes(MediaType.WILDCARD)
+    public Response judgeCase(@PathParam("id") int id, @PathParam("case") String name,
+            @QueryParam("problem") String problem, @QueryParam(ShardRouter.FORWARDED) boolean forwarded,
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType, @HeaderParam(HttpHeaders.ACCEPT) String accept,
+            InputStream output) throws IOException
+    {
+        if (problem == null)
+            throw new BadRequestException("No problem given");
+
+        /* The verdict has to be kept where the execution will be judged, and
+         * the output can't be read twice, so there's nothing to fall back to
+         * if the owner can't be reached. */
+        URI owner = this.owner(forwarded, problem, id);
+        if (owner != null)
+            return this.router.stream(owner, id, problem, name, contentType, accept, output);
+
+        JudgementCase judgementCase = this.manager.judgeStream(id, problem, name, output);
+        if (judgementCase == null)
+            throw new NotFoundException("No such case: " + name);
+
+        return Response.ok(judgementCase).build();
+    }
+
+    /**
+     * @return the peer an execution belongs to, or <code>null</code> if it's
+     *         to be judged here
+     */
+    private URI owner(boolean forwarded, String problem, int id)
+    {
+        if (this.router == null || forwarded || problem == null)
+            return null;
+
+        return this.router.route(problem, id);
+    }
 }
\ No newline at end of file
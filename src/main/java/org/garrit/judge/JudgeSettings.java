@@ -0,0 +1,39 @@
+package org.garrit.judge;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Per-problem judge settings, read from <code>judge.yml</code> in the problem
+ * directory. Problems without one are judged by the line judge.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Data
+public class JudgeSettings
+{
+    /**
+     * The file, within a problem directory, holding its judge settings.
+     */
+    public static final String FILE_NAME = "judge.yml";
+
+    /**
+     * The name of the judge, as given by its {@link JudgeProvider provider}.
+     */
+    private String judge = "line";
+
+    /**
+     * Judge-specific parameters.
+     */
+    private Map<String, String> parameters = new HashMap<>();
+
+    /**
+     * Whether to stop judging an execution at its first failed case, leaving
+     * the rest {@link SkippedJudgementCase skipped}, unless the submission
+     * says otherwise.
+     */
+    private boolean failFast = false;
+}
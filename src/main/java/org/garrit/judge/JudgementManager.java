@@ -1,34 +1,57 @@
 package org.garrit.judge;
 
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
-import java.net.URI;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
-import org.apache.http.HttpEntity;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.impl.client.HttpClients;
 import org.garrit.common.Problem;
 import org.garrit.common.ProblemCase;
-import org.garrit.common.Problems;
 import org.garrit.common.messages.ErrorSubmission;
 import org.garrit.common.messages.ErrorType;
 import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
 import org.garrit.common.messages.Judgement;
 import org.garrit.common.messages.JudgementCase;
-import org.garrit.common.messages.RegisteredSubmission;
 import org.garrit.common.messages.statuses.CapabilityType;
 import org.garrit.common.messages.statuses.JudgeStatus;
+import org.garrit.judge.SubmissionScheduler.Priority;
+import org.garrit.judge.SubmissionScheduler.QueuedExecution;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Collections2;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 
 /**
  * Handle judgement of executions.
@@ -37,46 +60,524 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * @since 1.0.0
  */
 @Slf4j
-public class JudgementManager implements JudgeStatus, Closeable
+public class JudgementManager implements JudgeStatus, Managed, Closeable
 {
+    /**
+     * How often, in milliseconds, idle reporting threads check whether
+     * they've been told to finish.
+     */
+    private static final long REPORT_POLL_MILLIS = 100;
+
     /**
      * The path containing problem definitions.
      */
     private final Path problems;
-    private final JudgementThread judgementThread;
+    /**
+     * Problem definitions, cached from the problem path.
+     */
+    private final ProblemCache problemCache;
+    /**
+     * Judges, shared between executions of each problem.
+     */
+    private final JudgeFactory judgeFactory;
+    /**
+     * Results of judging case output, or <code>null</code> if they aren't
+     * cached.
+     */
+    private final ResultCache resultCache;
+    /**
+     * Shares problems with peers, or <code>null</code> if every problem is
+     * judged here.
+     */
+    private final ShardRouter router;
+    /**
+     * The problems assigned to this judge, derived from the latest list of
+     * available problems.
+     */
+    private volatile OwnedProblems ownedProblems;
+    private final ArrayList<JudgementThread> judgementThreads;
+    /**
+     * The number of executions being judged right now.
+     */
+    private final AtomicInteger judging = new AtomicInteger();
+    /**
+     * Pool for judging the cases of large problems in parallel, or
+     * <code>null</code> if cases are always judged serially.
+     */
+    private final ForkJoinPool casePool;
+    /**
+     * Total expected output size, in bytes, from which a problem's cases are
+     * judged in parallel.
+     */
+    private final long parallelCaseThreshold;
+    private final NegotiatorClient negotiator;
+    /**
+     * Runs reports and errors to the negotiator.
+     */
+    private final DeliveryDispatcher dispatcher;
     private final ReportThread reportThread;
     private final ErrorThread errorThread;
 
     /**
      * Executions lined up and waiting to be judged.
      */
-    LinkedBlockingQueue<Execution> submissionQueue = new LinkedBlockingQueue<>();
+    final SubmissionScheduler submissionQueue;
+    /**
+     * Queued executions in the order they were created, kept alongside the
+     * scheduler so that the queue can be inspected without locking it.
+     */
+    private final ConcurrentSkipListMap<Long, QueuedExecution> queuedIndex = new ConcurrentSkipListMap<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    /**
+     * The total size of the outputs of queued executions, and the most it may
+     * grow to before further executions are turned away.
+     */
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final long maxQueuedBytes;
+    private final Meter rejections;
+    /**
+     * Verdicts on cases whose output was streamed, by execution ID, kept
+     * until the execution itself is submitted.
+     */
+    private final ConcurrentHashMap<Integer, StreamedExecution> streams = new ConcurrentHashMap<>();
+    /**
+     * How long, in nanoseconds, streamed verdicts are kept.
+     */
+    private final long streamTimeout;
+    /**
+     * The most executions whose streamed verdicts are kept at once.
+     */
+    private final int maxStreamedExecutions;
+    /**
+     * How many bytes longer than its expected output a streamed or
+     * compressed case's output may run before it's failed unread.
+     */
+    private final long maxExcessOutput;
+    private final Meter oversizedOutputs;
     /**
      * Submissions which have been judged and need to be sent back to the
      * mediator.
      */
-    LinkedBlockingQueue<Judgement> outgoingQueue = new LinkedBlockingQueue<>();
+    final JournaledQueue<Judgement> outgoingQueue;
     /**
      * Errors in execution which need to be indicated to the negotiator.
      */
-    LinkedBlockingQueue<ErrorSubmission<Execution>> errorQueue = new LinkedBlockingQueue<>();
+    final JournaledQueue<ErrorSubmission<Execution>> errorQueue;
+    /**
+     * Journals backing the outgoing and error queues, or <code>null</code> if
+     * they're held only in memory.
+     */
+    private final Journal outgoingJournal;
+    private final Journal errorJournal;
+
+    /**
+     * The initial and maximum delay, in nanoseconds, before retrying delivery
+     * to the negotiator.
+     */
+    private final long retryBackoff;
+    private final long retryMaxBackoff;
+    /**
+     * How long, in nanoseconds, to keep delivering on shutdown.
+     */
+    private final long shutdownTimeout;
+    /**
+     * Set once judging has stopped, telling the reporting threads to finish
+     * once they've emptied their queues.
+     */
+    private volatile boolean stopping = false;
+
+    /**
+     * Metrics for each stage of the pipeline, from waiting in the submission
+     * queue to delivery to the negotiator.
+     */
+    private final MetricRegistry metrics;
+    private final Timer queueWait;
+    private final EnumMap<Priority, Timer> priorityQueueWaits = new EnumMap<>(Priority.class);
+    private final Timer problemLoad;
+    private final Timer judgeSetup;
+    private final Timer judgements;
+    private final Timer evaluations;
+    private final Timer encodings;
+    private final Timer deliveries;
+    private final Meter judgedBytes;
+    private final Meter decompressedBytes;
+    private final Meter deliveryFailures;
+    private final Meter fingerprintMatches;
+    private final Meter failFastStops;
+    private final Meter skippedCases;
+    private final Meter skippedBytes;
+    private final Histogram batchSizes;
 
-    public JudgementManager(Path problems, URI negotiator)
+    public JudgementManager(JudgeConfiguration config, MetricRegistry metrics) throws IOException
     {
-        this.problems = problems;
-        this.judgementThread = new JudgementThread();
-        this.reportThread = new ReportThread(negotiator);
-        this.errorThread = new ErrorThread(negotiator);
+        this.problems = config.getProblems();
+
+        this.metrics = metrics;
+        this.queueWait = metrics.timer(MetricRegistry.name(JudgementManager.class, "queue-wait"));
+        this.problemLoad = metrics.timer(MetricRegistry.name(JudgementManager.class, "problem-load"));
+        this.judgeSetup = metrics.timer(MetricRegistry.name(JudgementManager.class, "judge-setup"));
+        this.judgements = metrics.timer(MetricRegistry.name(JudgementManager.class, "judgements"));
+        this.evaluations = metrics.timer(MetricRegistry.name(JudgementManager.class, "evaluations"));
+        this.encodings = metrics.timer(MetricRegistry.name(JudgementManager.class, "encodings"));
+        this.deliveries = metrics.timer(MetricRegistry.name(JudgementManager.class, "deliveries"));
+        this.judgedBytes = metrics.meter(MetricRegistry.name(JudgementManager.class, "judged-bytes"));
+        this.decompressedBytes = metrics.meter(MetricRegistry.name(JudgementManager.class, "decompressed-bytes"));
+        this.deliveryFailures = metrics.meter(MetricRegistry.name(JudgementManager.class, "delivery-failures"));
+        this.fingerprintMatches = metrics.meter(MetricRegistry.name(JudgementManager.class, "fingerprint-matches"));
+        this.failFastStops = metrics.meter(MetricRegistry.name(JudgementManager.class, "fail-fast-stops"));
+        this.skippedCases = metrics.meter(MetricRegistry.name(JudgementManager.class, "skipped-cases"));
+        this.skippedBytes = metrics.meter(MetricRegistry.name(JudgementManager.class, "skipped-bytes"));
+        this.batchSizes = metrics.histogram(MetricRegistry.name(JudgementManager.class, "report-batch-size"));
+
+        this.submissionQueue = new SubmissionScheduler(config.getMaxQueuedSubmissions(),
+                config.getStarvationThreshold().toNanoseconds());
+        this.maxQueuedBytes = config.getMaxQueuedBytes().toBytes();
+        this.rejections = metrics.meter(MetricRegistry.name(JudgementManager.class, "rejected"));
+        this.streamTimeout = config.getStreamTimeout().toNanoseconds();
+        this.maxStreamedExecutions = config.getMaxStreamedExecutions();
+        metrics.register(MetricRegistry.name(JudgementManager.class, "streamed-executions"),
+                (Gauge<Integer>) this.streams::size);
+        this.maxExcessOutput = config.getMaxExcessOutput().toBytes();
+        this.oversizedOutputs = metrics.meter(MetricRegistry.name(JudgementManager.class, "oversized-outputs"));
+        metrics.register(MetricRegistry.name(JudgementManager.class, "queued"),
+                (Gauge<Integer>) this.submissionQueue::size);
+        metrics.register(MetricRegistry.name(JudgementManager.class, "queued-bytes"),
+                (Gauge<Long>) this.queuedBytes::get);
+        for (Priority priority : Priority.values())
+        {
+            String name = priority.name().toLowerCase(Locale.ROOT);
+            this.priorityQueueWaits.put(priority,
+                    metrics.timer(MetricRegistry.name(JudgementManager.class, "queue-wait", name)));
+            metrics.register(MetricRegistry.name(JudgementManager.class, "queued", name),
+                    (Gauge<Integer>) () -> this.submissionQueue.size(priority));
+        }
+
+        long problemCacheSize = config.getProblemCacheSize().toBytes();
+        int problemCacheProblems = config.getProblemCacheProblems();
+        switch (config.getExpectedOutputs())
+        {
+            case MAPPED:
+                MappedProblemLoader loader = new MappedProblemLoader(this.problems, config.getExpectedOutputPattern());
+                this.problemCache = new ProblemCache(this.problems, problemCacheSize, problemCacheProblems, metrics,
+                        loader);
+                break;
+            case LAZY:
+                this.problemCache = new ProblemCache(this.problems, problemCacheSize, problemCacheProblems, metrics,
+                        new LazyProblemLoader(this.problems, config.getExpectedOutputPattern()));
+                break;
+            case HEAP:
+            default:
+                this.problemCache = new ProblemCache(this.problems, problemCacheSize, problemCacheProblems, metrics);
+                break;
+        }
+
+        this.judgeFactory = new JudgeFactory(this.problems);
+        this.problemCache.addInvalidationListener(this.judgeFactory);
+
+        if (config.getResultCacheSize() > 0)
+        {
+            Journal resultJournal = config.getResultCache() == null ? null
+                    : new Journal(config.getResultCache(), config.getJournalSegmentSize().toBytes(),
+                            config.getJournalSyncInterval().toMilliseconds());
+            this.resultCache = new ResultCache(config.getResultCacheSize(), resultJournal, metrics);
+        }
+        else
+            this.resultCache = null;
+
+        this.router = config.getPeers().isEmpty() ? null : new ShardRouter(config, metrics);
+
+        this.judgementThreads = new ArrayList<>(config.getJudgementThreads());
+        for (int i = 0; i < config.getJudgementThreads(); i++)
+            this.judgementThreads.add(new JudgementThread(i));
+
+        this.casePool = config.getCaseThreads() > 0 ? new ForkJoinPool(config.getCaseThreads()) : null;
+        this.parallelCaseThreshold = config.getParallelCaseThreshold().toBytes();
+
+        this.negotiator = new NegotiatorClient(
+                config.getNegotiator(),
+                /* There's no use delivering more at once than there are
+                 * connections to deliver on. */
+                Math.max(config.getNegotiatorConnections(), config.getReportConcurrency()),
+                config.getNegotiatorConnectTimeout(),
+                config.getNegotiatorTimeout(),
+                config.getNegotiatorFormat());
+        this.retryBackoff = config.getRetryBackoff().toNanoseconds();
+        this.retryMaxBackoff = config.getRetryMaxBackoff().toNanoseconds();
+        this.shutdownTimeout = config.getShutdownTimeout().toNanoseconds();
+
+        if (config.getJournal() != null)
+        {
+            long segmentBytes = config.getJournalSegmentSize().toBytes();
+            long syncInterval = config.getJournalSyncInterval().toMilliseconds();
+            /* Journals stay in JSON whatever's sent to the negotiator, so
+             * they can be read back if that changes. */
+            ObjectMapper mapper = WireFormat.JSON.newMapper();
+
+            this.outgoingJournal = new Journal(config.getJournal().resolve("outgoing"), segmentBytes, syncInterval);
+            this.errorJournal = new Journal(config.getJournal().resolve("errors"), segmentBytes, syncInterval);
+            this.outgoingQueue = new JournaledQueue<>(this.outgoingJournal, mapper,
+                    mapper.getTypeFactory().constructType(Judgement.class));
+            this.errorQueue = new JournaledQueue<>(this.errorJournal, mapper,
+                    mapper.getTypeFactory().constructParametrizedType(ErrorSubmission.class, ErrorSubmission.class, Execution.class));
+        }
+        else
+        {
+            this.outgoingJournal = null;
+            this.errorJournal = null;
+            this.outgoingQueue = new JournaledQueue<>();
+            this.errorQueue = new JournaledQueue<>();
+        }
+
+        metrics.register(MetricRegistry.name(JudgementManager.class, "outgoing-queued"),
+                (Gauge<Integer>) this.outgoingQueue::size);
+        metrics.register(MetricRegistry.name(JudgementManager.class, "error-queued"),
+                (Gauge<Integer>) this.errorQueue::size);
+
+        this.dispatcher = new DeliveryDispatcher(config.getReportThreads(), config.getReportConcurrency());
+        this.reportThread = new ReportThread(config);
+        this.errorThread = new ErrorThread();
+    }
+
+    /**
+     * Enqueue a live contest submission for judgement, unless the queue is
+     * full.
+     * 
+     * @param execution the execution
+     * @return whether the execution was queued
+     */
+    public boolean enqueue(Execution execution)
+    {
+        return this.enqueue(execution, Priority.CONTEST, null);
+    }
+
+    /**
+     * Enqueue a submission for judgement, unless the queue is full.
+     * 
+     * @param execution the execution
+     * @param priority the class of submission
+     * @param submitter who made the submission, or <code>null</code> if
+     *            unknown
+     * @return whether the execution was queued
+     */
+    public boolean enqueue(Execution execution, Priority priority, String submitter)
+    {
+        return this.enqueue(execution, priority, submitter, null);
     }
 
     /**
-     * Enqueue a submission for execution.
+     * Enqueue a submission for judgement, unless the queue is full.
      * 
-     * @param submission the submission
+     * @param execution the execution
+     * @param priority the class of submission
+     * @param submitter who made the submission, or <code>null</code> if
+     *            unknown
+     * @param failFast whether to stop judging at the first failed case, or
+     *            <code>null</code> to leave it to the problem's settings
+     * @return whether the execution was queued
      */
-    public void enqueue(Execution execution)
+    public boolean enqueue(Execution execution, Priority priority, String submitter, Boolean failFast)
     {
-        this.submissionQueue.add(execution);
+        return this.enqueue(execution, priority, submitter, failFast, Compression.IDENTITY);
+    }
+
+    /**
+     * Enqueue a submission for judgement, unless the queue is full. Compressed
+     * output is kept compressed until it's judged.
+     * 
+     * @param execution the execution
+     * @param priority the class of submission
+     * @param submitter who made the submission, or <code>null</code> if
+     *            unknown
+     * @param failFast whether to stop judging at the first failed case, or
+     *            <code>null</code> to leave it to the problem's settings
+     * @param compression the compression of the output of each case
+     * @return whether the execution was queued
+     */
+    public boolean enqueue(Execution execution, Priority priority, String submitter, Boolean failFast,
+            Compression compression)
+    {
+        long bytes = JudgementManager.size(execution);
+        QueuedExecution queuedExecution = new QueuedExecution(execution, priority, submitter, failFast, compression,
+                bytes);
+
+        /* Reserve space for the execution's output. An execution bigger than
+         * the limit is still let into an empty queue, or it could never be
+         * judged. */
+        long queued;
+        do
+        {
+            queued = this.queuedBytes.get();
+            if (queued > 0 && queued + bytes > this.maxQueuedBytes)
+            {
+                this.rejections.mark();
+                return false;
+            }
+        }
+        while (!this.queuedBytes.compareAndSet(queued, queued + bytes));
+
+        /* Index the execution first, so that it can't be taken and removed
+         * from the index before it's been added. */
+        this.queuedIndex.put(queuedExecution.sequence, queuedExecution);
+        this.queuedCount.incrementAndGet();
+
+        if (!this.submissionQueue.offer(queuedExecution))
+        {
+            this.queuedIndex.remove(queuedExecution.sequence);
+            this.queuedCount.decrementAndGet();
+            this.queuedBytes.addAndGet(-bytes);
+            this.rejections.mark();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Take the next execution to be judged from the queue.
+     * 
+     * @return the queued execution
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private QueuedExecution dequeue() throws InterruptedException
+    {
+        QueuedExecution queuedExecution = this.submissionQueue.take();
+        this.queuedIndex.remove(queuedExecution.sequence);
+        this.queuedCount.decrementAndGet();
+        this.queuedBytes.addAndGet(-queuedExecution.bytes);
+
+        long waited = System.nanoTime() - queuedExecution.enqueued;
+        this.queueWait.update(waited, TimeUnit.NANOSECONDS);
+        this.priorityQueueWaits.get(queuedExecution.priority).update(waited, TimeUnit.NANOSECONDS);
+
+        return queuedExecution;
+    }
+
+    /**
+     * @return the total size of an execution's output
+     */
+    private static long size(Execution execution)
+    {
+        long bytes = 0;
+        for (ExecutionCase executionCase : execution.getCases())
+            if (executionCase.getOutput() != null)
+                bytes += executionCase.getOutput().length;
+
+        return bytes;
+    }
+
+    /**
+     * Judge the output of a single case as it's read, ahead of its execution
+     * being submitted, stopping as soon as the output is known to be wrong.
+     * The verdict is kept and used when the execution arrives, in place of
+     * judging the case again.
+     * 
+     * @param id the execution ID
+     * @param problemName the problem name
+     * @param caseName the case name
+     * @param output the case output
+     * @return the judged case, or <code>null</code> if the problem has no such
+     *         case
+     * @throws IOException if the problem or its judge can't be loaded, or the
+     *             output can't be read or judged
+     */
+    public JudgementCase judgeStream(int id, String problemName, String caseName, InputStream output) throws IOException
+    {
+        Problem problem = this.loadProblem(problemName);
+        ProblemCase problemCase = null;
+        for (ProblemCase candidate : problem.getCases())
+            if (candidate.getName().equals(caseName))
+                problemCase = candidate;
+
+        if (problemCase == null)
+            return null;
+
+        CaseStream stream;
+        try
+        {
+            stream = this.judgeFactory.getJudge(problemName).stream(problemCase);
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName(caseName);
+        JudgementCase judgementCase = this.judgeLimited(stream, problemCase, new CountingInputStream(output),
+                executionCase);
+
+        long now = System.nanoTime();
+        this.streams.values().removeIf(streamed -> now - streamed.touched > this.streamTimeout);
+
+        /* The verdict is kept within the update, so that it can't be added to
+         * an execution which has just been claimed. */
+        this.streams.compute(id, (key, existing) -> {
+            StreamedExecution streamed = existing != null && existing.problem.equals(problemName) ? existing
+                    : new StreamedExecution(problemName);
+            streamed.cases.put(caseName, judgementCase);
+            streamed.touched = now;
+
+            return streamed;
+        });
+
+        /* Too many executions are being streamed at once; forget the one
+         * streamed to longest ago. */
+        while (this.streams.size() > this.maxStreamedExecutions)
+        {
+            Map.Entry<Integer, StreamedExecution> oldest = Collections.min(this.streams.entrySet(),
+                    (a, b) -> Long.signum(a.getValue().touched - b.getValue().touched));
+            if (this.streams.remove(oldest.getKey(), oldest.getValue()))
+                log.warn("Too many streamed executions; forgetting cases streamed for execution {}", oldest.getKey());
+        }
+
+        return judgementCase;
+    }
+
+    /**
+     * Judge output read from a stream, up to the length of the expected
+     * output plus the most excess output allowed. Output running past that is
+     * failed without being read any further, so that neither endless output
+     * nor a decompression bomb can tie up a judge or exhaust its memory.
+     * 
+     * @param stream the judge's stream
+     * @param problemCase the problem case
+     * @param output the output, counting the bytes read from it
+     * @param executionCase the execution case, without its output
+     * @return the judged case
+     * @throws IOException if the output can't be read, or an error occurs
+     *             while judging
+     */
+    private JudgementCase judgeLimited(CaseStream stream, ProblemCase problemCase, CountingInputStream output,
+            ExecutionCase executionCase) throws IOException
+    {
+        long limit = Judge.expectedLength(problemCase) + this.maxExcessOutput;
+        JudgementCase judgementCase = stream.judge(ByteStreams.limit(output, limit + 1), executionCase);
+        if (output.getCount() <= limit)
+            return judgementCase;
+
+        this.oversizedOutputs.mark();
+        return CaseStream.verdict(executionCase, false);
+    }
+
+    /**
+     * Claim the verdicts on any of an execution's cases which were streamed.
+     * 
+     * @param execution the execution
+     * @return the judged cases, by name
+     */
+    private Map<String, JudgementCase> claimStreamed(Execution execution)
+    {
+        StreamedExecution streamed = this.streams.remove(execution.getId());
+        if (streamed == null)
+            return Collections.emptyMap();
+
+        if (!streamed.problem.equals(execution.getProblem()))
+        {
+            log.warn("Ignoring cases streamed for execution {} of a different problem", execution.getId());
+            return Collections.emptyMap();
+        }
+
+        return streamed.cases;
     }
 
     @Override
@@ -85,12 +586,29 @@ public class JudgementManager implements JudgeStatus, Closeable
         return Arrays.asList("*");
     }
 
+    /**
+     * @return the problems judged here; if problems are shared with peers,
+     *         only those assigned to this judge
+     */
     @Override
-    public Iterable<String> getProblems()
+    public List<String> getProblems()
     {
         try
         {
-            return Problems.availableProblems(this.problems);
+            List<String> available = this.problemCache.getAvailable();
+            if (this.router == null)
+                return available;
+
+            OwnedProblems owned = this.ownedProblems;
+            if (owned == null || owned.available != available)
+            {
+                owned = new OwnedProblems(available, available.stream()
+                        .filter(this.router::owns)
+                        .collect(Collectors.toList()));
+                this.ownedProblems = owned;
+            }
+
+            return owned.owned;
         }
         catch (IOException e)
         {
@@ -99,54 +617,430 @@ public class JudgementManager implements JudgeStatus, Closeable
         }
     }
 
+    /**
+     * @return the IDs of queued executions, in the order they were queued, as
+     *         a live view of the queue
+     */
     @Override
-    public ArrayList<Integer> getQueued()
+    public Collection<Integer> getQueued()
     {
-        ArrayList<RegisteredSubmission> frozenQueue = new ArrayList<>(this.submissionQueue);
-        ArrayList<Integer> queuedIds = new ArrayList<>(frozenQueue.size());
+        return Collections2.transform(this.queuedIndex.values(), queued -> queued.execution.getId());
+    }
 
-        frozenQueue.forEach(submission -> queuedIds.add(submission.getId()));
+    /**
+     * @return how busy this judge is, for peers and the negotiator to balance
+     *         work by
+     */
+    public Load getLoad()
+    {
+        Map.Entry<Long, QueuedExecution> oldest = this.queuedIndex.firstEntry();
+        long queueAge = oldest == null ? 0 : Math.max(0, System.nanoTime() - oldest.getValue().enqueued);
+        long reportingLag = Math.max(this.outgoingQueue.oldestAge(), this.errorQueue.oldestAge());
+
+        return new Load(this.queuedCount.get(), this.queuedBytes.get(), this.judging.get(),
+                this.judgementThreads.size(), this.outgoingQueue.size(), this.errorQueue.size(),
+                TimeUnit.NANOSECONDS.toMillis(queueAge), TimeUnit.NANOSECONDS.toMillis(reportingLag));
+    }
 
-        return queuedIds;
+    /**
+     * @return the router sharing problems with peers, or <code>null</code> if
+     *         every problem is judged here
+     */
+    ShardRouter getRouter()
+    {
+        return this.router;
     }
 
     /**
      * Start processing queued submissions.
      */
+    @Override
     public void start()
     {
         log.info("Starting judgement manager");
-        this.judgementThread.start();
+        this.problemCache.start();
+        this.startJudging();
         this.reportThread.start();
         this.errorThread.start();
     }
 
+    /**
+     * Start the judgement threads alone, leaving judgements to accumulate in
+     * the outgoing queue.
+     */
+    void startJudging()
+    {
+        this.judgementThreads.forEach(Thread::start);
+    }
+
+    @Override
+    public void stop() throws IOException
+    {
+        this.close();
+    }
+
+    /**
+     * Stop processing submissions, waiting for any judgements in progress to
+     * finish, then for the judgements and errors left over to be delivered,
+     * for up to the shutdown timeout. Anything still undelivered is left in
+     * the journal, if there is one.
+     */
     @Override
     public void close() throws IOException
     {
         log.info("Closing judgement manager");
-        this.judgementThread.interrupt();
-        this.reportThread.interrupt();
-        this.errorThread.interrupt();
+        this.judgementThreads.forEach(Thread::interrupt);
+
+        long deadline = 0;
+        try
+        {
+            for (JudgementThread judgementThread : this.judgementThreads)
+                judgementThread.join();
+
+            /* Nothing more will be queued, so the reporting threads can
+             * finish as soon as their queues are empty. */
+            this.stopping = true;
+            deadline = System.nanoTime() + this.shutdownTimeout;
+            this.finish(this.reportThread, deadline);
+            this.finish(this.errorThread, deadline);
+        }
+        catch (InterruptedException e)
+        {
+            this.reportThread.interrupt();
+            this.errorThread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+
+        this.dispatcher.close(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+        if (this.casePool != null)
+            this.casePool.shutdown();
+
+        this.problemCache.close();
+        if (this.resultCache != null)
+            this.resultCache.close();
+        this.negotiator.close();
+        if (this.router != null)
+            this.router.close();
+
+        if (this.outgoingJournal != null)
+            this.outgoingJournal.close();
+        if (this.errorJournal != null)
+            this.errorJournal.close();
+    }
+
+    /**
+     * Wait for a reporting thread to empty its queue and finish, interrupting
+     * it if it hasn't by a deadline.
+     * 
+     * @param thread the reporting thread
+     * @param deadline the deadline, from {@link System#nanoTime()}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void finish(Thread thread, long deadline) throws InterruptedException
+    {
+        if (!thread.isAlive())
+            return;
+
+        TimeUnit.NANOSECONDS.timedJoin(thread, Math.max(1, deadline - System.nanoTime()));
+        if (thread.isAlive())
+        {
+            log.warn("Gave up delivering everything left to the negotiator on shutdown");
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    /**
+     * Retrieve the definition of a problem.
+     * 
+     * @param name the problem name
+     * @return the problem definition
+     * @throws IOException if the problem can't be loaded
+     */
+    protected Problem loadProblem(String name) throws IOException
+    {
+        return this.problemCache.get(name);
+    }
+
+    /**
+     * Retrieve the fingerprints of a problem's expected outputs.
+     * 
+     * @param name the problem name
+     * @param problem the problem definition, as {@link #loadProblem loaded}
+     * @return the fingerprints, by case, or <code>null</code> if they aren't
+     *         available
+     */
+    protected Map<ProblemCase, Fingerprint> loadFingerprints(String name, Problem problem)
+    {
+        return this.problemCache.getFingerprints(name, problem);
+    }
+
+    /**
+     * Judge an execution as its problem's settings say, placing the result on
+     * the outgoing queue, or on the error queue if judgement fails.
+     * 
+     * @param execution the execution
+     */
+    void judge(Execution execution)
+    {
+        this.judge(execution, null);
+    }
+
+    /**
+     * Judge an execution, placing the result on the outgoing queue, or on the
+     * error queue if judgement fails. Judged fail-fast, cases after the first
+     * failed case are skipped rather than judged.
+     * 
+     * @param execution the execution
+     * @param failFast whether to judge fail-fast, or <code>null</code> to
+     *            leave it to the problem's settings
+     */
+    void judge(Execution execution, Boolean failFast)
+    {
+        this.judge(execution, failFast, Compression.IDENTITY);
+    }
+
+    /**
+     * Judge an execution, placing the result on the outgoing queue, or on the
+     * error queue if judgement fails. Judged fail-fast, cases after the first
+     * failed case are skipped rather than judged.
+     * 
+     * @param execution the execution
+     * @param failFast whether to judge fail-fast, or <code>null</code> to
+     *            leave it to the problem's settings
+     * @param compression the compression of the output of each case
+     */
+    void judge(Execution execution, Boolean failFast, Compression compression)
+    {
+        long start = System.nanoTime();
+        Problem problem;
+        Judge judge;
+        JudgeSettings settings;
+
+        /* We may not need to report an error, but here's one
+         * half-constructed and ready to go in the event we do. */
+        ErrorSubmission<Execution> error = new ErrorSubmission<>();
+        error.setId(execution.getId());
+        error.setStage(CapabilityType.JUDGE);
+        error.setSubmission(execution);
+
+        try (Timer.Context context = this.problemLoad.time())
+        {
+            problem = this.loadProblem(execution.getProblem());
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to retrieve problem definition", e);
+
+            error.setType(ErrorType.E_INTERNAL);
+            error.setMessage("Failed to retrieve problem definition");
+            this.errorQueue.offer(error);
+
+            return;
+        }
+
+        try (Timer.Context context = this.judgeSetup.time())
+        {
+            judge = this.judgeFactory.getJudge(execution.getProblem());
+            settings = this.judgeFactory.getSettings(execution.getProblem());
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to set up judge", e);
+
+            error.setType(ErrorType.E_INTERNAL);
+            error.setMessage("Failed to set up judge");
+            this.errorQueue.offer(error);
+
+            return;
+        }
+
+        Evaluation evaluation = new Evaluation(execution, judge, settings,
+                this.loadFingerprints(execution.getProblem(), problem), error,
+                failFast == null ? settings.isFailFast() : failFast, compression, problem.getCases().size());
+
+        List<ProblemCase> problemCases = problem.getCases();
+        if (this.isParallel(problem))
+        {
+            /* Fork every case off to the shared pool, then collect them in
+             * problem order. */
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < problemCases.size(); i++)
+            {
+                int index = i;
+                tasks.add(this.casePool.submit(() -> evaluation.evaluate(index, problemCases.get(index))));
+            }
+
+            /* Wait for every case before giving up on any, so that none is
+             * still being judged once the thread moves on. */
+            tasks.forEach(ForkJoinTask::quietlyJoin);
+            tasks.forEach(ForkJoinTask::join);
+        }
+        else
+        {
+            for (int i = 0; i < problemCases.size() && !evaluation.isStopped(i); i++)
+                evaluation.evaluate(i, problemCases.get(i));
+        }
+
+        Judgement judgement = new Judgement(execution);
+        judgement.setCases(evaluation.collect(problemCases));
+
+        this.judgements.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        this.judgedBytes.mark(JudgementManager.size(execution) - evaluation.skippedBytes);
+
+        this.outgoingQueue.offer(judgement);
+    }
+
+    /**
+     * Determine whether a problem is large enough to have its cases judged in
+     * parallel.
+     * 
+     * @param problem the problem
+     * @return whether to judge the cases in parallel
+     */
+    private boolean isParallel(Problem problem)
+    {
+        List<ProblemCase> cases = problem.getCases();
+
+        if (this.casePool == null || cases.size() < 2)
+            return false;
+
+        long expectedBytes = 0;
+        for (ProblemCase problemCase : cases)
+        {
+            expectedBytes += Judge.expectedLength(problemCase);
+            if (expectedBytes >= this.parallelCaseThreshold)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Encode a message for delivery to the negotiator.
+     * 
+     * @param message the message
+     * @return the encoded message
+     * @throws JsonProcessingException if the message can't be encoded
+     */
+    private byte[] encode(Object message) throws JsonProcessingException
+    {
+        try (Timer.Context context = this.encodings.time())
+        {
+            return this.negotiator.encode(message);
+        }
+    }
+
+    /**
+     * Post a message to the negotiator, retrying with exponential backoff for
+     * as long as delivery fails for any reason other than the negotiator
+     * refusing the message. A negotiator which asks for messages to be sent
+     * more slowly is left for as long as it asks, if that's longer.
+     * 
+     * @param path the path, relative to the negotiator endpoint
+     * @param body the encoded message
+     * @throws NegotiatorException if the negotiator refuses the message
+     * @throws InterruptedException if interrupted while waiting to retry
+     */
+    private void deliver(String path, byte[] body) throws NegotiatorException, InterruptedException
+    {
+        long backoff = this.retryBackoff;
+
+        while (true)
+        {
+            long wait = backoff;
+            try (Timer.Context context = this.deliveries.time())
+            {
+                this.negotiator.post(path, body);
+                return;
+            }
+            catch (NegotiatorException e)
+            {
+                /* Most client errors won't go away by trying again. */
+                if (!e.isRetryable())
+                    throw e;
+
+                wait = Math.max(backoff, TimeUnit.MILLISECONDS.toNanos(e.getRetryAfter()));
+                log.warn("Failed to deliver {} to negotiator; retrying in {}ms", path, TimeUnit.NANOSECONDS.toMillis(wait), e);
+            }
+            catch (IOException e)
+            {
+                log.warn("Failed to deliver {} to negotiator; retrying in {}ms", path, TimeUnit.NANOSECONDS.toMillis(backoff), e);
+            }
+
+            this.deliveryFailures.mark();
+            TimeUnit.NANOSECONDS.sleep(wait);
+            backoff = Math.min(backoff * 2, this.retryMaxBackoff);
+        }
+    }
+
+    /**
+     * A snapshot of how busy the judge is.
+     */
+    @Value
+    public static class Load
+    {
+        /**
+         * Executions waiting to be judged, and the total size of their output.
+         */
+        int queued;
+        long queuedBytes;
+        /**
+         * Executions being judged, and the most which may be judged at once.
+         */
+        int judging;
+        int judgementThreads;
+        /**
+         * Judgements and errors waiting to be delivered to the negotiator.
+         */
+        int outgoing;
+        int errors;
+        /**
+         * How long, in milliseconds, the oldest queued execution has waited.
+         */
+        long queueAge;
+        /**
+         * How long, in milliseconds, the oldest judgement or error not yet
+         * delivered to the negotiator has waited.
+         */
+        long reportingLag;
+    }
+
+    /**
+     * The problems assigned to this judge out of a list of available
+     * problems.
+     */
+    private static class OwnedProblems
+    {
+        final List<String> available;
+        final List<String> owned;
+
+        OwnedProblems(List<String> available, List<String> owned)
+        {
+            this.available = available;
+            this.owned = Collections.unmodifiableList(owned);
+        }
     }
 
     /**
-     * Thread to perform the actual executions.
+     * Thread to perform the actual judgements. Several of these drain the
+     * submission queue concurrently, each judging one execution at a time.
      *
      * @author Samuel Coleman <samuel@seenet.ca>
      * @since 1.0.0
      */
     private class JudgementThread extends Thread
     {
-        public JudgementThread()
+        public JudgementThread(int index)
         {
-            super("Judgement thread");
+            super("Judgement thread " + index);
         }
 
         @Override
         public void run()
         {
-            log.info("Starting judgement thread");
+            log.info("Starting {}", this.getName());
 
             try
             {
@@ -155,58 +1049,31 @@ public class JudgementManager implements JudgeStatus, Closeable
                     if (Thread.interrupted())
                         break;
 
-                    Execution execution = JudgementManager.this.submissionQueue.take();
-
-                    Problem problem;
-                    Judge judge;
-
-                    /* We may not need to report an error, but here's one
-                     * half-constructed and ready to go in the event we do. */
-                    ErrorSubmission<Execution> error = new ErrorSubmission<>();
-                    error.setId(execution.getId());
-                    error.setStage(CapabilityType.JUDGE);
-                    error.setSubmission(execution);
-
+                    QueuedExecution queuedExecution = JudgementManager.this.dequeue();
+                    JudgementManager.this.judging.incrementAndGet();
                     try
                     {
-                        problem = Problems.problemByName(JudgementManager.this.problems, execution.getProblem());
+                        JudgementManager.this.judge(queuedExecution.execution, queuedExecution.failFast,
+                                queuedExecution.compression);
                     }
-                    catch (IOException e)
+                    catch (RuntimeException | Error e)
                     {
-                        log.error("Failed to retrieve problem definition", e);
+                        /* One bad execution mustn't take the thread down
+                         * with it. */
+                        log.error("Failed to judge execution {}", queuedExecution.execution.getId(), e);
 
+                        ErrorSubmission<Execution> error = new ErrorSubmission<>();
+                        error.setId(queuedExecution.execution.getId());
+                        error.setStage(CapabilityType.JUDGE);
+                        error.setSubmission(queuedExecution.execution);
                         error.setType(ErrorType.E_INTERNAL);
-                        error.setMessage("Failed to retrieve problem definition");
+                        error.setMessage("Failed to judge execution");
                         JudgementManager.this.errorQueue.offer(error);
-
-                        continue;
                     }
-
-                    judge = JudgeFactory.getJudge(execution);
-
-                    ArrayList<JudgementCase> judgementCases = new ArrayList<>();
-                    for (ProblemCase problemCase : problem.getCases())
+                    finally
                     {
-                        try
-                        {
-                            judgementCases.add(judge.evaluate(problemCase));
-                        }
-                        catch (IOException e)
-                        {
-                            log.error("Failure while judging case", e);
-
-                            error.setType(ErrorType.E_JUDGING);
-                            error.setMessage(e.getMessage());
-                            JudgementManager.this.errorQueue.offer(error);
-
-                            continue;
-                        }
+                        JudgementManager.this.judging.decrementAndGet();
                     }
-
-                    Judgement judgement = new Judgement(execution);
-                    judgement.setCases(judgementCases);
-
-                    JudgementManager.this.outgoingQueue.offer(judgement);
                 }
             }
             catch (InterruptedException e)
@@ -214,24 +1081,41 @@ public class JudgementManager implements JudgeStatus, Closeable
                 /* If we've been interrupted, just finish execution. */
             }
 
-            log.info("Finishing judgement thread");
+            log.info("Finishing {}", this.getName());
         }
     }
 
     /**
-     * Thread to report back to the negotiator.
+     * Thread to report back to the negotiator. Judgements are sent in batches
+     * of whatever has accumulated in the outgoing queue, bounded by count,
+     * size and how long the first judgement of the batch has been waiting.
+     * If the negotiator doesn't accept batches, each judgement is reported on
+     * its own. Batches are handed to the {@link DeliveryDispatcher dispatcher},
+     * so several may be in flight at once.
      *
      * @author Samuel Coleman <samuel@seenet.ca>
      * @since 1.0.0
      */
     private class ReportThread extends Thread
     {
-        private final URI negotiator;
+        private final int batchSize;
+        private final long batchBytes;
+        private final long batchLinger;
+
+        private volatile boolean batchesSupported = true;
+
+        /**
+         * A judgement taken from the queue which didn't fit in the previous
+         * batch.
+         */
+        private Judgement carried;
 
-        public ReportThread(URI negotiator)
+        public ReportThread(JudgeConfiguration config)
         {
             super("Negotiator reporting thread");
-            this.negotiator = negotiator;
+            this.batchSize = config.getReportBatchSize();
+            this.batchBytes = config.getReportBatchBytes().toBytes();
+            this.batchLinger = config.getReportBatchLinger().toNanoseconds();
         }
 
         @Override
@@ -246,63 +1130,523 @@ public class JudgementManager implements JudgeStatus, Closeable
                     if (Thread.interrupted())
                         break;
 
-                    Judgement judgement = JudgementManager.this.outgoingQueue.take();
+                    /* Judging has stopped; once the queue's found empty,
+                     * there's nothing left to report. */
+                    boolean last = JudgementManager.this.stopping;
 
-                    ObjectMapper mapper = new ObjectMapper();
-
-                    HttpClient client;
-                    HttpPost post;
-                    HttpEntity body;
-
-                    client = HttpClients.createDefault();
-                    post = new HttpPost(this.negotiator.resolve("report/" + judgement.getId()));
-                    try
-                    {
-                        body = new ByteArrayEntity(mapper.writeValueAsBytes(judgement));
-                    }
-                    catch (JsonProcessingException e)
+                    Batch batch = this.collect();
+                    if (batch.isEmpty())
                     {
-                        log.error("Failed to encode outgoing execution object to JSON", e);
+                        if (last)
+                            break;
                         continue;
                     }
 
-                    post.setHeader("Content-Type", "application/json");
-                    post.setEntity(body);
+                    JudgementManager.this.dispatcher.dispatch(() -> this.report(batch));
+                }
+            }
+            catch (InterruptedException e)
+            {
+                /* If we've been interrupted, just finish execution. */
+            }
+
+            log.info("Finishing negotiator reporting thread");
+        }
 
-                    try
+        /**
+         * Collect the next batch of encoded judgements, waiting a short while
+         * for at least one.
+         *
+         * @return the batch, empty if none arrived
+         * @throws InterruptedException if interrupted while waiting
+         */
+        private Batch collect() throws InterruptedException
+        {
+            Batch batch = new Batch();
+            long deadline = 0;
+
+            while (batch.size() < this.batchSize)
+            {
+                Judgement judgement;
+                if (this.carried != null)
+                {
+                    judgement = this.carried;
+                    this.carried = null;
+                }
+                else if (batch.isEmpty())
+                {
+                    judgement = JudgementManager.this.outgoingQueue.poll(REPORT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (judgement == null)
+                        break;
+                }
+                else
+                {
+                    long linger = deadline - System.nanoTime();
+                    if (linger <= 0)
+                        break;
+
+                    judgement = JudgementManager.this.outgoingQueue.poll(linger, TimeUnit.NANOSECONDS);
+                    if (judgement == null)
+                        break;
+                }
+
+                if (batch.isEmpty())
+                    deadline = System.nanoTime() + this.batchLinger;
+
+                byte[] body;
+                try
+                {
+                    body = JudgementManager.this.encode(judgement);
+                }
+                catch (JsonProcessingException e)
+                {
+                    log.error("Failed to encode outgoing execution object", e);
+                    JudgementManager.this.outgoingQueue.acknowledge(judgement);
+                    continue;
+                }
+
+                /* Leave anything which would overfill the batch for the next
+                 * one. */
+                if (!batch.isEmpty() && batch.bytes + body.length > this.batchBytes)
+                {
+                    this.carried = judgement;
+                    break;
+                }
+
+                batch.add(judgement, body);
+            }
+
+            return batch;
+        }
+
+        /**
+         * Report a batch of judgements to the negotiator, retrying until
+         * they're delivered or refused.
+         * 
+         * @param batch the batch
+         * @throws InterruptedException if interrupted while waiting to retry
+         */
+        private void report(Batch batch) throws InterruptedException
+        {
+            JournaledQueue<Judgement> queue = JudgementManager.this.outgoingQueue;
+            JudgementManager.this.batchSizes.update(batch.size());
+
+            if (batch.size() > 1 && this.batchesSupported)
+            {
+                try
+                {
+                    byte[] body = JudgementManager.this.negotiator.encodeBatch(batch.judgements, batch.bodies);
+                    JudgementManager.this.deliver("report", body);
+                    batch.judgements.forEach(queue::acknowledge);
+                    return;
+                }
+                catch (NegotiatorException e)
+                {
+                    if (!this.isUnsupported(e.getStatus()))
                     {
-                        client.execute(post);
+                        log.error("Negotiator refused outgoing execution objects", e);
+                        batch.judgements.forEach(queue::acknowledge);
+                        return;
                     }
-                    catch (IOException e)
+
+                    log.info("Negotiator doesn't accept batched reports; reporting individually");
+                    this.batchesSupported = false;
+                }
+                catch (JsonProcessingException e)
+                {
+                    log.error("Failed to encode outgoing execution objects; reporting individually", e);
+                }
+            }
+
+            for (int i = 0; i < batch.size(); i++)
+            {
+                Judgement judgement = batch.judgements.get(i);
+
+                try
+                {
+                    JudgementManager.this.deliver("report/" + judgement.getId(), batch.bodies.get(i));
+                }
+                catch (NegotiatorException e)
+                {
+                    log.error("Negotiator refused outgoing execution object", e);
+                }
+
+                queue.acknowledge(judgement);
+            }
+        }
+
+        /**
+         * @return whether a response status indicates that the negotiator has
+         *         no batch endpoint
+         */
+        private boolean isUnsupported(int status)
+        {
+            return status == 404 || status == 405 || status == 415 || status == 501;
+        }
+    }
+
+    /**
+     * The judging of a single execution, shared by every case evaluated for
+     * it.
+     */
+    private class Evaluation
+    {
+        private final String problem;
+        private final Judge judge;
+        private final JudgeSettings settings;
+        private final Map<String, ExecutionCase> executionCases;
+        /**
+         * Cases judged as they were streamed, by name.
+         */
+        private final Map<String, JudgementCase> streamedCases;
+        /**
+         * Fingerprints of the expected outputs, by case, or <code>null</code>
+         * if they aren't available.
+         */
+        private final Map<ProblemCase, Fingerprint> fingerprints;
+        private final ErrorSubmission<Execution> error;
+        private final Timer problemEvaluations;
+        private final Timer judgeEvaluations;
+        /**
+         * The compression of the output of each case.
+         */
+        private final Compression compression;
+
+        private final boolean failFast;
+        /**
+         * Judged cases, by their index in the problem, and whether each was
+         * judged at all.
+         */
+        private final JudgementCase[] results;
+        private final boolean[] evaluated;
+        /**
+         * The index of the first failed case, when judging fail-fast.
+         */
+        private final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        /**
+         * The size of the execution output left unjudged, once
+         * {@link #collect collected}.
+         */
+        long skippedBytes = 0;
+
+        Evaluation(Execution execution, Judge judge, JudgeSettings settings,
+                Map<ProblemCase, Fingerprint> fingerprints, ErrorSubmission<Execution> error, boolean failFast,
+                Compression compression, int cases)
+        {
+            MetricRegistry metrics = JudgementManager.this.metrics;
+
+            this.problem = execution.getProblem();
+            this.judge = judge;
+            this.settings = settings;
+            this.executionCases = Judge.casesByName(execution);
+            this.streamedCases = JudgementManager.this.claimStreamed(execution);
+            this.fingerprints = fingerprints;
+            this.error = error;
+            this.problemEvaluations = metrics.timer(
+                    MetricRegistry.name(JudgementManager.class, "problems", execution.getProblem(), "evaluations"));
+            this.judgeEvaluations = metrics.timer(MetricRegistry.name(judge.getClass(), "evaluations"));
+
+            this.compression = compression;
+            this.failFast = failFast;
+            this.results = new JudgementCase[cases];
+            this.evaluated = new boolean[cases];
+        }
+
+        /**
+         * @param index the index of a case in the problem
+         * @return whether the case can be skipped, as an earlier case has
+         *         failed
+         */
+        boolean isStopped(int index)
+        {
+            return index > this.firstFailure.get();
+        }
+
+        /**
+         * Evaluate a single problem case, unless an earlier case has already
+         * failed and the execution is being judged fail-fast.
+         * 
+         * @param index the index of the case in the problem
+         * @param problemCase the problem case
+         */
+        void evaluate(int index, ProblemCase problemCase)
+        {
+            if (this.isStopped(index))
+                return;
+
+            JudgementCase judgementCase = this.evaluate(problemCase);
+            this.results[index] = judgementCase;
+            this.evaluated[index] = true;
+
+            /* Failing to judge a case counts as failing it. */
+            if (this.failFast && (judgementCase == null || judgementCase.getValue() < judgementCase.getValueMax()))
+                this.firstFailure.accumulateAndGet(index, Math::min);
+        }
+
+        /**
+         * Collect the judged cases in problem order, marking any after the
+         * first failed case as skipped when judging fail-fast.
+         * 
+         * @param problemCases the problem's cases, as evaluated
+         * @return the judged cases
+         */
+        List<JudgementCase> collect(List<ProblemCase> problemCases)
+        {
+            ArrayList<JudgementCase> judgementCases = new ArrayList<>(problemCases.size());
+            int skipped = 0;
+
+            for (int i = 0; i < problemCases.size(); i++)
+            {
+                if (!this.isStopped(i))
+                {
+                    if (this.results[i] != null)
+                        judgementCases.add(this.results[i]);
+                    continue;
+                }
+
+                ExecutionCase executionCase = this.executionCases.get(problemCases.get(i).getName());
+                judgementCases.add(this.skip(problemCases.get(i), executionCase));
+
+                /* Cases judged in parallel may have been judged anyway. */
+                if (!this.evaluated[i])
+                {
+                    skipped++;
+                    if (executionCase != null && executionCase.getOutput() != null)
+                        this.skippedBytes += executionCase.getOutput().length;
+                }
+            }
+
+            if (this.firstFailure.get() < problemCases.size() - 1)
+                JudgementManager.this.failFastStops.mark();
+            JudgementManager.this.skippedCases.mark(skipped);
+            JudgementManager.this.skippedBytes.mark(this.skippedBytes);
+
+            return judgementCases;
+        }
+
+        /**
+         * Mark a case skipped, with the lowest value the failed case could
+         * have had.
+         */
+        private JudgementCase skip(ProblemCase problemCase, ExecutionCase executionCase)
+        {
+            SkippedJudgementCase skipped;
+            if (executionCase != null)
+                skipped = new SkippedJudgementCase(executionCase);
+            else
+            {
+                skipped = new SkippedJudgementCase();
+                skipped.setName(problemCase.getName());
+            }
+
+            JudgementCase failed = this.results[this.firstFailure.get()];
+            if (failed != null)
+            {
+                skipped.setValue(failed.getValueMin());
+                skipped.setValueMin(failed.getValueMin());
+                skipped.setValueMax(failed.getValueMax());
+            }
+
+            return skipped;
+        }
+
+        /**
+         * Evaluate a single problem case, unless it was already judged as it
+         * was streamed, reporting an error if judgement fails. Output
+         * identical to the expected output is recognized by its fingerprint
+         * and judged without comparing it, as is output whose result is
+         * already cached. Compressed output is always compared, as it's
+         * decompressed.
+         * 
+         * @param problemCase the problem case
+         * @return the judged case, or <code>null</code> if judgement failed
+         */
+        JudgementCase evaluate(ProblemCase problemCase)
+        {
+            JudgementCase streamed = this.streamedCases.get(problemCase.getName());
+            if (streamed != null)
+                return streamed;
+
+            ExecutionCase executionCase = this.executionCases.get(problemCase.getName());
+            ResultCache resultCache = JudgementManager.this.resultCache;
+
+            long start = System.nanoTime();
+            try
+            {
+                if (this.compression != Compression.IDENTITY && executionCase != null
+                        && executionCase.getOutput() != null)
+                    return this.evaluateCompressed(problemCase, executionCase);
+
+                Fingerprint expected = this.expectedFingerprint(problemCase);
+                Fingerprint output = this.fingerprint(expected, executionCase);
+                if (output == null)
+                    return this.judge.evaluate(problemCase, executionCase);
+
+                if (output.equals(expected))
+                {
+                    JudgementCase identical = this.judge.evaluateIdentical(executionCase);
+                    if (identical != null)
                     {
-                        log.error("Failed to call negotiator with outgoing execution object", e);
-                        continue;
+                        JudgementManager.this.fingerprintMatches.mark();
+                        return identical;
                     }
                 }
+
+                if (resultCache == null)
+                    return this.judge.evaluate(problemCase, executionCase);
+
+                HashCode key = ResultCache.key(this.problem, problemCase.getName(), this.settings, expected, output);
+                JudgementCase judgementCase = resultCache.get(key, executionCase);
+                if (judgementCase == null)
+                {
+                    judgementCase = this.judge.evaluate(problemCase, executionCase);
+                    resultCache.put(key, judgementCase);
+                }
+
+                return judgementCase;
             }
-            catch (InterruptedException e)
+            catch (IOException | UncheckedIOException e)
             {
-                /* If we've been interrupted, just finish execution. */
+                log.error("Failure while judging case", e);
+
+                synchronized (this.error)
+                {
+                    this.error.setType(ErrorType.E_JUDGING);
+                    this.error.setMessage(e.getMessage());
+                }
+                JudgementManager.this.errorQueue.offer(this.error);
+
+                return null;
             }
+            finally
+            {
+                long elapsed = System.nanoTime() - start;
+                JudgementManager.this.evaluations.update(elapsed, TimeUnit.NANOSECONDS);
+                this.problemEvaluations.update(elapsed, TimeUnit.NANOSECONDS);
+                this.judgeEvaluations.update(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
 
-            log.info("Finishing negotiator reporting thread");
+        /**
+         * Judge compressed output as it's decompressed, as though it were
+         * streamed, so that judges which judge incrementally never hold the
+         * whole output and stop decompressing as soon as it's wrong.
+         */
+        private JudgementCase evaluateCompressed(ProblemCase problemCase, ExecutionCase executionCase)
+                throws IOException
+        {
+            ExecutionCase bare = new ExecutionCase();
+            bare.setName(executionCase.getName());
+
+            try (CountingInputStream output = new CountingInputStream(
+                    this.compression.decompress(new ByteArrayInputStream(executionCase.getOutput()))))
+            {
+                JudgementCase judgementCase = JudgementManager.this.judgeLimited(this.judge.stream(problemCase),
+                        problemCase, output, bare);
+                JudgementManager.this.decompressedBytes.mark(output.getCount());
+
+                return judgementCase;
+            }
+        }
+
+        /**
+         * @return the fingerprint of a case's expected output, or
+         *         <code>null</code> if it isn't available
+         */
+        private Fingerprint expectedFingerprint(ProblemCase problemCase)
+        {
+            if (problemCase instanceof LazyProblemCase)
+                return ((LazyProblemCase) problemCase).getFingerprint();
+
+            return this.fingerprints == null ? null : this.fingerprints.get(problemCase);
+        }
+
+        /**
+         * Fingerprint the output of an execution case, if the fingerprint
+         * could be put to use.
+         * 
+         * @param expected the fingerprint of the expected output, or
+         *            <code>null</code> if it isn't available
+         * @param executionCase the execution case, or <code>null</code>
+         * @return the fingerprint, or <code>null</code> if the output must
+         *         simply be evaluated
+         */
+        private Fingerprint fingerprint(Fingerprint expected, ExecutionCase executionCase)
+        {
+            /* Results are only cached against a known expected output, so that
+             * they can't outlive a change to the problem. */
+            if (expected == null || executionCase == null || executionCase.getOutput() == null)
+                return null;
+
+            /* Without a result cache, only pay for hashing the output when it
+             * could match. */
+            if (JudgementManager.this.resultCache == null
+                    && (expected.getLength() != executionCase.getOutput().length
+                            || this.judge.evaluateIdentical(executionCase) == null))
+                return null;
+
+            return Fingerprint.of(executionCase.getOutput());
+        }
+    }
+
+    /**
+     * Verdicts on the streamed cases of an execution yet to be submitted.
+     */
+    private static class StreamedExecution
+    {
+        final String problem;
+        final ConcurrentHashMap<String, JudgementCase> cases = new ConcurrentHashMap<>();
+        /**
+         * When a case was last streamed, from {@link System#nanoTime()}.
+         */
+        volatile long touched;
+
+        StreamedExecution(String problem)
+        {
+            this.problem = problem;
+            this.touched = System.nanoTime();
         }
     }
 
     /**
-     * Thread to send errors back to the negotiator.
+     * Judgements to be reported together, and their encodings.
+     */
+    private static class Batch
+    {
+        final ArrayList<Judgement> judgements = new ArrayList<>();
+        final ArrayList<byte[]> bodies = new ArrayList<>();
+        long bytes = 0;
+
+        void add(Judgement judgement, byte[] body)
+        {
+            this.judgements.add(judgement);
+            this.bodies.add(body);
+            this.bytes += body.length;
+        }
+
+        int size()
+        {
+            return this.judgements.size();
+        }
+
+        boolean isEmpty()
+        {
+            return this.judgements.isEmpty();
+        }
+    }
+
+    /**
+     * Thread to send errors back to the negotiator, by way of the
+     * {@link DeliveryDispatcher dispatcher}.
      *
      * @author Samuel Coleman <samuel@seenet.ca>
      * @since 1.0.0
      */
     private class ErrorThread extends Thread
     {
-        private final URI negotiator;
-
-        public ErrorThread(URI negotiator)
+        public ErrorThread()
         {
             super("Error reporting thread");
-            this.negotiator = negotiator;
         }
 
         @Override
@@ -317,38 +1661,32 @@ public class JudgementManager implements JudgeStatus, Closeable
                     if (Thread.interrupted())
                         break;
 
-                    ErrorSubmission<Execution> error = JudgementManager.this.errorQueue.take();
-
-                    ObjectMapper mapper = new ObjectMapper();
+                    /* Judging has stopped; once the queue's found empty,
+                     * there's no error left to report. */
+                    boolean last = JudgementManager.this.stopping;
 
-                    HttpClient client;
-                    HttpPost post;
-                    HttpEntity body;
-
-                    client = HttpClients.createDefault();
-                    post = new HttpPost(this.negotiator.resolve("error/" + error.getId()));
-                    try
+                    ErrorSubmission<Execution> error = JudgementManager.this.errorQueue.poll(REPORT_POLL_MILLIS,
+                            TimeUnit.MILLISECONDS);
+                    if (error == null)
                     {
-                        body = new ByteArrayEntity(mapper.writeValueAsBytes(error));
-                    }
-                    catch (JsonProcessingException e)
-                    {
-                        log.error("Failed to encode outgoing error object to JSON", e);
+                        if (last)
+                            break;
                         continue;
                     }
 
-                    post.setHeader("Content-Type", "application/json");
-                    post.setEntity(body);
-
+                    byte[] body;
                     try
                     {
-                        client.execute(post);
+                        body = JudgementManager.this.encode(error);
                     }
-                    catch (IOException e)
+                    catch (JsonProcessingException e)
                     {
-                        log.error("Failed to call negotiator with outgoing error object", e);
+                        log.error("Failed to encode outgoing error object", e);
+                        JudgementManager.this.errorQueue.acknowledge(error);
                         continue;
                     }
+
+                    JudgementManager.this.dispatcher.dispatch(() -> this.report(error, body));
                 }
             }
             catch (InterruptedException e)
@@ -358,5 +1696,27 @@ public class JudgementManager implements JudgeStatus, Closeable
 
             log.info("Finishing error reporting thread");
         }
+
+        /**
+         * Report an error to the negotiator, retrying until it's delivered or
+         * refused.
+         *
+         * @param error the error
+         * @param body the encoded error
+         * @throws InterruptedException if interrupted while waiting to retry
+         */
+        private void report(ErrorSubmission<Execution> error, byte[] body) throws InterruptedException
+        {
+            try
+            {
+                JudgementManager.this.deliver("error/" + error.getId(), body);
+            }
+            catch (NegotiatorException e)
+            {
+                log.error("Negotiator refused outgoing error object", e);
+            }
+
+            JudgementManager.this.errorQueue.acknowledge(error);
+        }
     }
 }
\ No newline at end of file
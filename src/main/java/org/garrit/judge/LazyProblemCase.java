@@ -0,0 +1,83 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.garrit.common.ProblemCase;
+
+/**
+ * A problem case whose expected output stays on disk until it's judged.
+ *
+ * The output is read afresh each time a judge asks for it through
+ * {@link Judge#expectedOutput}, and dropped once the judge is done with it,
+ * so a problem's cases only take up memory while they're being judged. The
+ * first read also {@link Fingerprint fingerprints} the output, which is kept.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class LazyProblemCase extends ProblemCase
+{
+    private final Path path;
+    private final long length;
+    /**
+     * The fingerprint of the expected output, or <code>null</code> until it's
+     * first read.
+     */
+    private volatile Fingerprint fingerprint;
+
+    /**
+     * @param name the case name
+     * @param path the expected output file
+     * @param length the size of the expected output file
+     */
+    public LazyProblemCase(String name, Path path, long length)
+    {
+        this.setName(name);
+        this.path = path;
+        this.length = length;
+    }
+
+    /**
+     * @return the size of the expected output, as it was when the problem
+     *         was loaded
+     */
+    public long getLength()
+    {
+        return this.length;
+    }
+
+    /**
+     * @return the fingerprint of the expected output, or <code>null</code> if
+     *         it hasn't been read yet
+     */
+    public Fingerprint getFingerprint()
+    {
+        return this.fingerprint;
+    }
+
+    /**
+     * Read the expected output from disk.
+     *
+     * @return a buffer holding the output, backed by an array of its own
+     * @throws IOException if the output can't be read
+     */
+    public ByteBuffer readOutput() throws IOException
+    {
+        byte[] output = Files.readAllBytes(this.path);
+        if (this.fingerprint == null)
+            this.fingerprint = Fingerprint.of(output);
+
+        /* Nothing else shares the array, so it's left writable for judges and
+         * fingerprinting to use directly. */
+        return ByteBuffer.wrap(output);
+    }
+
+    @Override
+    public byte[] getOutput()
+    {
+        return Judge.expectedOutput(this).array();
+    }
+}
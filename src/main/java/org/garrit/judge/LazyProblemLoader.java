@@ -0,0 +1,29 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.garrit.common.ProblemCase;
+
+/**
+ * Load problems as {@link MappedProblemLoader} does, but leave their expected
+ * outputs on disk to be {@link LazyProblemCase read} only when they're judged.
+ * Loading a problem only lists its expected output files.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class LazyProblemLoader extends MappedProblemLoader
+{
+    public LazyProblemLoader(Path problems, String pattern)
+    {
+        super(problems, pattern);
+    }
+
+    @Override
+    protected ProblemCase loadCase(String name, Path path) throws IOException
+    {
+        return new LazyProblemCase(name, path, Files.size(path));
+    }
+}
@@ -1,8 +1,7 @@
 package org.garrit.judge;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Scanner;
+import java.nio.ByteBuffer;
 
 import org.garrit.common.ProblemCase;
 import org.garrit.common.messages.Execution;
@@ -17,27 +16,47 @@ import org.garrit.common.messages.JudgementCase;
  * 
  * The marked value for each case is boolean: 1/1 if all lines match, 0/1 if
  * they don't.
+ * 
+ * Lines may end in <code>\n</code>, <code>\r\n</code> or <code>\r</code>,
+ * and a line ending at the very end of the output is optional. Outputs are
+ * compared byte-by-byte in place, stopping at the first mismatch.
  *
  * @author Samuel Coleman <samuel@seenet.ca>
  * @since 1.0.0
  */
 public class LineJudge extends Judge
 {
-    private HashMap<String, ExecutionCase> executionCases = new HashMap<>();
+    /**
+     * Register the line judge as <code>line</code>.
+     */
+    public static class Provider implements JudgeProvider
+    {
+        @Override
+        public String getName()
+        {
+            return "line";
+        }
+
+        @Override
+        public Judge newJudge(JudgeSettings settings)
+        {
+            return new LineJudge();
+        }
+    }
+
+    public LineJudge()
+    {
+        super();
+    }
 
     public LineJudge(Execution execution)
     {
         super(execution);
-
-        for (ExecutionCase executionCase : execution.getCases())
-            this.executionCases.put(executionCase.getName(), executionCase);
     }
 
     @Override
-    public JudgementCase evaluate(ProblemCase problemCase) throws IOException
+    public JudgementCase evaluate(ProblemCase problemCase, ExecutionCase executionCase) throws IOException
     {
-        ExecutionCase executionCase = this.executionCases.get(problemCase.getName());
-
         if (executionCase == null)
             throw new IOException("No execution for case");
 
@@ -46,27 +65,187 @@ public class LineJudge extends Judge
         judgementCase.setValueMin(0);
         judgementCase.setValueMax(1);
 
-        try (
-                Scanner problemScanner = new Scanner(new String(problemCase.getOutput()));
-                Scanner executionScanner = new Scanner(new String(executionCase.getOutput())))
+        if (!LineJudge.linesMatch(Judge.expectedOutput(problemCase), Judge.actualOutput(executionCase)))
+            judgementCase.setValue(0);
+
+        return judgementCase;
+    }
+
+    @Override
+    public JudgementCase evaluateIdentical(ExecutionCase executionCase)
+    {
+        return CaseStream.verdict(executionCase, true);
+    }
+
+    /**
+     * Compare two outputs line by line, between their positions and limits.
+     * 
+     * @param expected the expected output
+     * @param actual the actual output
+     * @return whether every line matches
+     */
+    static boolean linesMatch(ByteBuffer expected, ByteBuffer actual)
+    {
+        int i = expected.position();
+        int j = actual.position();
+        int expectedEnd = expected.limit();
+        int actualEnd = actual.limit();
+
+        while (i < expectedEnd && j < actualEnd)
         {
-            while (problemScanner.hasNextLine() && executionScanner.hasNextLine())
+            /* Walk both lines for as long as they agree. */
+            while (i < expectedEnd && j < actualEnd
+                    && expected.get(i) == actual.get(j) && !LineJudge.isLineEnding(expected.get(i)))
             {
-                if (!problemScanner.nextLine().equals(executionScanner.nextLine()))
+                i++;
+                j++;
+            }
+
+            boolean expectedEnded = i == expectedEnd || LineJudge.isLineEnding(expected.get(i));
+            boolean actualEnded = j == actualEnd || LineJudge.isLineEnding(actual.get(j));
+
+            if (!expectedEnded || !actualEnded)
+                return false;
+
+            i = LineJudge.skipLineEnding(expected, i);
+            j = LineJudge.skipLineEnding(actual, j);
+        }
+
+        /* If one output has more lines than the other... */
+        return i == expectedEnd && j == actualEnd;
+    }
+
+    private static boolean isLineEnding(byte b)
+    {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Step past the line ending at a given position, if there is one.
+     * 
+     * @param output the output
+     * @param position the position of the line ending
+     * @return the position of the start of the next line
+     */
+    private static int skipLineEnding(ByteBuffer output, int position)
+    {
+        int end = output.limit();
+
+        if (position < end && output.get(position++) == '\r'
+                && position < end && output.get(position) == '\n')
+            position++;
+
+        return position;
+    }
+
+    @Override
+    public CaseStream stream(ProblemCase problemCase)
+    {
+        return new Stream(Judge.expectedOutput(problemCase));
+    }
+
+    /**
+     * Compare outputs with their line endings normalized to <code>\n</code>,
+     * which is equivalent to comparing them line by line. A line ending in the
+     * execution output is held back until the next byte arrives, since a line
+     * ending at the very end of either output is optional.
+     */
+    private static class Stream extends CaseStream
+    {
+        private final ByteBuffer expected;
+        private int position;
+        private boolean expectedReturn = false;
+        private int lastExpected = -1;
+
+        private long actualBytes = 0;
+        private boolean actualReturn = false;
+        private boolean pendingLineEnding = false;
+        private boolean matches = true;
+
+        Stream(ByteBuffer expected)
+        {
+            this.expected = expected;
+            this.position = expected.position();
+        }
+
+        @Override
+        public boolean write(ByteBuffer chunk)
+        {
+            if (!this.matches)
+                return false;
+
+            this.actualBytes += chunk.remaining();
+
+            for (int k = chunk.position(); k < chunk.limit(); k++)
+            {
+                byte b = chunk.get(k);
+
+                /* The second half of a \r\n has already been counted. */
+                if (b == '\n' && this.actualReturn)
+                {
+                    this.actualReturn = false;
+                    continue;
+                }
+                this.actualReturn = b == '\r';
+
+                if (this.pendingLineEnding)
                 {
-                    judgementCase.setValue(0);
-                    return judgementCase;
+                    if (this.nextExpected() != '\n')
+                        return this.matches = false;
+                    this.pendingLineEnding = false;
                 }
+
+                if (LineJudge.isLineEnding(b))
+                    this.pendingLineEnding = true;
+                else if (this.nextExpected() != (b & 0xff))
+                    return this.matches = false;
             }
 
-            /* If one output has fewer lines than the other... */
-            if (problemScanner.hasNextLine() != executionScanner.hasNextLine())
+            return true;
+        }
+
+        @Override
+        public JudgementCase finish(ExecutionCase executionCase)
+        {
+            boolean expectedEmpty = this.expected.position() == this.expected.limit();
+            if (expectedEmpty != (this.actualBytes == 0))
+                this.matches = false;
+
+            /* Only one line ending may be dropped from the end of each output.
+             * If the expected output's was matched by the execution output,
+             * then the line ending held back is one too many. */
+            int next = this.nextExpected();
+            if (next == -1 && this.pendingLineEnding && this.lastExpected == '\n')
+                this.matches = false;
+
+            /* Otherwise whatever's left of the expected output may only be a
+             * line ending. */
+            if (next == '\n')
+                next = this.nextExpected();
+
+            return CaseStream.verdict(executionCase, this.matches && next == -1);
+        }
+
+        /**
+         * @return the next byte of the expected output, with line endings
+         *         normalized, or -1 at the end
+         */
+        private int nextExpected()
+        {
+            while (this.position < this.expected.limit())
             {
-                judgementCase.setValue(0);
-                return judgementCase;
+                byte b = this.expected.get(this.position++);
+                if (b == '\n' && this.expectedReturn)
+                {
+                    this.expectedReturn = false;
+                    continue;
+                }
+                this.expectedReturn = b == '\r';
+
+                return this.lastExpected = LineJudge.isLineEnding(b) ? '\n' : b & 0xff;
             }
-        }
 
-        return judgementCase;
+            return -1;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package org.garrit.judge;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import org.garrit.common.ProblemCase;
+
+/**
+ * A problem case whose expected output is memory-mapped from disk rather than
+ * held on the heap.
+ *
+ * Judges should read the output through {@link Judge#expectedOutput}; calling
+ * {@link #getOutput()} copies the whole mapping onto the heap.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class MappedProblemCase extends ProblemCase
+{
+    private final MappedByteBuffer outputBuffer;
+
+    public MappedProblemCase(String name, MappedByteBuffer outputBuffer)
+    {
+        this.setName(name);
+        this.outputBuffer = outputBuffer;
+    }
+
+    /**
+     * @return a read-only view of the mapped expected output
+     */
+    public ByteBuffer getOutputBuffer()
+    {
+        return this.outputBuffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public byte[] getOutput()
+    {
+        ByteBuffer buffer = this.getOutputBuffer();
+        byte[] output = new byte[buffer.remaining()];
+        buffer.get(output);
+
+        return output;
+    }
+}
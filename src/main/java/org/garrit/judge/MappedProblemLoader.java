@@ -0,0 +1,126 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.garrit.common.Problem;
+import org.garrit.common.ProblemCase;
+
+/**
+ * Load problems with their expected outputs memory-mapped from the problem
+ * directory.
+ *
+ * Expected output files are located using a pattern relative to the problem
+ * directory, in which <code>{problem}</code> stands for the problem name and
+ * <code>{case}</code> for the case name; every file matching the pattern
+ * becomes a case. Mapped files should be replaced rather than rewritten in
+ * place, as truncating a file while it's mapped will fail any judgement
+ * reading it.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class MappedProblemLoader implements ProblemCache.Loader
+{
+    private static final String PROBLEM = "{problem}";
+    private static final String CASE = "{case}";
+
+    /**
+     * The path containing problem definitions.
+     */
+    private final Path problems;
+    private final String pattern;
+
+    public MappedProblemLoader(Path problems, String pattern)
+    {
+        if (!pattern.contains(CASE))
+            throw new IllegalArgumentException("Expected output pattern must contain " + CASE);
+
+        this.problems = problems;
+        this.pattern = pattern;
+    }
+
+    @Override
+    public Problem load(String name) throws IOException
+    {
+        Path directory = this.problems.resolve(name);
+        if (!Files.isDirectory(directory))
+            throw new IOException("No such problem: " + name);
+
+        Pattern outputs = this.compile(name);
+
+        Problem problem = new Problem();
+        problem.setName(name);
+
+        ArrayList<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            files.filter(Files::isRegularFile)
+                    .filter(path -> outputs.matcher(this.relativize(path)).matches())
+                    .sorted(Comparator.comparing(this::relativize))
+                    .forEach(paths::add);
+        }
+
+        for (Path path : paths)
+        {
+            Matcher matcher = outputs.matcher(this.relativize(path));
+            matcher.matches();
+
+            problem.getCases().add(this.loadCase(matcher.group(1), path));
+        }
+
+        return problem;
+    }
+
+    /**
+     * Load a single case.
+     *
+     * @param name the case name
+     * @param path the expected output file
+     * @return the case
+     * @throws IOException if the expected output can't be loaded
+     */
+    protected ProblemCase loadCase(String name, Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Expected output too large to map: " + path);
+
+            return new MappedProblemCase(name, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Build a regular expression matching the expected output paths of a
+     * problem, capturing the case name.
+     *
+     * @param problem the problem name
+     * @return the pattern
+     */
+    private Pattern compile(String problem)
+    {
+        String problemPattern = this.pattern.replace(PROBLEM, problem);
+        int caseIndex = problemPattern.indexOf(CASE);
+
+        return Pattern.compile(Pattern.quote(problemPattern.substring(0, caseIndex))
+                + "([^/]+)"
+                + Pattern.quote(problemPattern.substring(caseIndex + CASE.length())));
+    }
+
+    /**
+     * @return the path relative to the problem directory, with forward slashes
+     */
+    private String relativize(Path path)
+    {
+        return this.problems.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+}
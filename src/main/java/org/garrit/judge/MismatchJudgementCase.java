@@ -0,0 +1,46 @@
+package org.garrit.judge;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A judged case which also says where the execution output first went wrong,
+ * for judges able to tell.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MismatchJudgementCase extends JudgementCase
+{
+    /**
+     * The index of the first token of the execution output which doesn't
+     * match, or <code>null</code> if every token matches.
+     */
+    @Getter
+    @Setter
+    private Long mismatchToken;
+
+    /**
+     * The offset in bytes of that token in the execution output, or
+     * <code>null</code> if every token matches.
+     */
+    @Getter
+    @Setter
+    private Long mismatchOffset;
+
+    public MismatchJudgementCase()
+    {
+        super();
+    }
+
+    public MismatchJudgementCase(ExecutionCase executionCase)
+    {
+        super(executionCase);
+    }
+}
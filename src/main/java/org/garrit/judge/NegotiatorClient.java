@@ -0,0 +1,173 @@
+package org.garrit.judge;
+
+import io.dropwizard.util.Duration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Deliver messages to the negotiator over a pool of persistent connections.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class NegotiatorClient implements Closeable
+{
+    private final URI negotiator;
+    private final WireFormat format;
+    private final ObjectMapper mapper;
+    private final CloseableHttpClient client;
+
+    /**
+     * @param negotiator the negotiator endpoint
+     * @param connections the maximum number of open connections
+     * @param connectTimeout how long to wait for a connection to be made, or
+     *            for one to become free in the pool
+     * @param timeout how long to wait for the negotiator to respond
+     * @param format the encoding of messages
+     */
+    public NegotiatorClient(URI negotiator, int connections, Duration connectTimeout, Duration timeout,
+            WireFormat format)
+    {
+        this.negotiator = negotiator;
+        this.format = format;
+        this.mapper = format.newMapper();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(connections);
+        connectionManager.setDefaultMaxPerRoute(connections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMilliseconds())
+                .setConnectionRequestTimeout((int) connectTimeout.toMilliseconds())
+                .setSocketTimeout((int) timeout.toMilliseconds())
+                .build();
+
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+    }
+
+    /**
+     * Encode a message for delivery.
+     *
+     * @param message the message
+     * @return the encoded message
+     * @throws JsonProcessingException if the message can't be encoded
+     */
+    public byte[] encode(Object message) throws JsonProcessingException
+    {
+        return this.mapper.writeValueAsBytes(message);
+    }
+
+    /**
+     * Encode a batch of messages as a single array.
+     *
+     * @param messages the messages
+     * @param encoded the messages, already {@link #encode encoded}
+     * @return the encoded batch
+     * @throws JsonProcessingException if the messages can't be encoded
+     */
+    public byte[] encodeBatch(List<?> messages, List<byte[]> encoded) throws JsonProcessingException
+    {
+        /* Binary encodings share state across a whole document, so they can't
+         * be stitched together from separately encoded messages. */
+        if (this.format != WireFormat.JSON)
+            return this.mapper.writeValueAsBytes(messages);
+
+        int length = 2 + Math.max(0, encoded.size() - 1);
+        for (byte[] message : encoded)
+            length += message.length;
+
+        byte[] batch = new byte[length];
+        int position = 0;
+        batch[position++] = '[';
+        for (byte[] message : encoded)
+        {
+            if (position > 1)
+                batch[position++] = ',';
+            System.arraycopy(message, 0, batch, position, message.length);
+            position += message.length;
+        }
+        batch[position] = ']';
+
+        return batch;
+    }
+
+    /**
+     * Post an encoded message to the negotiator.
+     *
+     * @param path the path, relative to the negotiator endpoint
+     * @param body the encoded message
+     * @throws NegotiatorException if the negotiator refuses the message
+     * @throws IOException if the message can't be delivered
+     */
+    public void post(String path, byte[] body) throws IOException
+    {
+        HttpPost post = new HttpPost(this.negotiator.resolve(path));
+        post.setHeader("Content-Type", this.format.getMediaType());
+        post.setEntity(new ByteArrayEntity(body));
+
+        try (CloseableHttpResponse response = this.client.execute(post))
+        {
+            /* Always drain the response so that the connection can go back to
+             * the pool. */
+            EntityUtils.consume(response.getEntity());
+
+            int status = response.getStatusLine().getStatusCode();
+            if (status < 200 || status >= 300)
+                throw new NegotiatorException(status, "Negotiator responded with " + response.getStatusLine(),
+                        NegotiatorClient.retryAfter(response.getFirstHeader("Retry-After")));
+        }
+    }
+
+    /**
+     * Parse a <code>Retry-After</code> header, given either in seconds or as
+     * a date.
+     *
+     * @param header the header, or <code>null</code> if there's none
+     * @return how long to wait in milliseconds, or <code>-1</code> if the
+     *         header is missing or can't be parsed
+     */
+    static long retryAfter(Header header)
+    {
+        if (header == null)
+            return -1;
+
+        String value = header.getValue().trim();
+        try
+        {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        }
+        catch (NumberFormatException e)
+        {
+            Date date = DateUtils.parseDate(value);
+            return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.client.close();
+    }
+}
@@ -0,0 +1,50 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the negotiator refuses a message.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class NegotiatorException extends IOException
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The HTTP status the negotiator responded with.
+     */
+    @Getter
+    private final int status;
+    /**
+     * How long, in milliseconds, the negotiator asked to be left before the
+     * message is sent again, or <code>-1</code> if it didn't say.
+     */
+    @Getter
+    private final long retryAfter;
+
+    public NegotiatorException(int status, String message)
+    {
+        this(status, message, -1);
+    }
+
+    public NegotiatorException(int status, String message, long retryAfter)
+    {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return whether the message may be accepted if it's sent again: the
+     *         negotiator failed, timed out waiting for it or asked for it to be
+     *         sent more slowly, rather than refusing it outright
+     */
+    public boolean isRetryable()
+    {
+        return this.status < 400 || this.status >= 500 || this.status == 408 || this.status == 429;
+    }
+}
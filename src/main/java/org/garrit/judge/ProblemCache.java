@@ -0,0 +1,556 @@
+package org.garrit.judge;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.garrit.common.Problem;
+import org.garrit.common.ProblemCase;
+import org.garrit.common.Problems;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Keep parsed problem definitions in memory, so that they aren't re-read from
+ * disk for every execution.
+ *
+ * The cache is bounded by the total size of the expected outputs it holds on
+ * the heap, and by the number of problems it holds, evicting the least
+ * recently used problems first. Problems whose outputs are mapped or read
+ * from disk take no heap, but each still holds mappings or paths, so the
+ * number of problems is what bounds them. Problems are invalidated
+ * whenever anything beneath their directory changes.
+ *
+ * The expected output of every case of a cached problem is
+ * {@link Fingerprint fingerprinted} in the background, so that identical
+ * execution output can be recognized without comparing it.
+ *
+ * While the problem directory is being watched, the list of available
+ * problems is kept too, and refreshed as the directory changes.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Slf4j
+public class ProblemCache implements Closeable
+{
+    /**
+     * Source of problem definitions for the cache.
+     */
+    public interface Loader
+    {
+        /**
+         * Load a problem definition.
+         *
+         * @param name the problem name
+         * @return the problem definition
+         * @throws IOException if the problem can't be loaded
+         */
+        Problem load(String name) throws IOException;
+    }
+
+    /**
+     * Notified when cached problems are invalidated, so that anything derived
+     * from them can be dropped too.
+     */
+    public interface InvalidationListener
+    {
+        /**
+         * @param problem the name of the invalidated problem
+         */
+        void invalidated(String problem);
+
+        /**
+         * Every problem has been invalidated.
+         */
+        void invalidatedAll();
+    }
+
+    /**
+     * The path containing problem definitions.
+     */
+    private final Path problems;
+    private final Loader loader;
+    /**
+     * The maximum total size, in bytes, of the expected outputs of cached
+     * problems.
+     */
+    private final long maxBytes;
+    /**
+     * The maximum number of cached problems.
+     */
+    private final int maxProblems;
+
+    /**
+     * Cached problems, in order of least to most recently used.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    /**
+     * Incremented on every invalidation, so that loads racing with an
+     * invalidation don't cache stale definitions.
+     */
+    private long generation = 0;
+    /**
+     * Loads in progress, so that concurrent misses on the same problem only
+     * read it from disk once.
+     */
+    private final ConcurrentHashMap<String, FutureTask<Problem>> loading = new ConcurrentHashMap<>();
+
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+
+    private final CopyOnWriteArrayList<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService fingerprinter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Problem fingerprinting thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WatchThread watchThread;
+    /**
+     * The names of the available problems, or <code>null</code> if they have
+     * to be listed afresh each time, as when changes aren't being watched.
+     */
+    private volatile List<String> available;
+
+    public ProblemCache(Path problems, long maxBytes, MetricRegistry metrics)
+    {
+        this(problems, maxBytes, Integer.MAX_VALUE, metrics);
+    }
+
+    public ProblemCache(Path problems, long maxBytes, int maxProblems, MetricRegistry metrics)
+    {
+        this(problems, maxBytes, maxProblems, metrics, name -> Problems.problemByName(problems, name));
+    }
+
+    public ProblemCache(Path problems, long maxBytes, MetricRegistry metrics, Loader loader)
+    {
+        this(problems, maxBytes, Integer.MAX_VALUE, metrics, loader);
+    }
+
+    public ProblemCache(Path problems, long maxBytes, int maxProblems, MetricRegistry metrics, Loader loader)
+    {
+        this.problems = problems;
+        this.maxBytes = maxBytes;
+        this.maxProblems = maxProblems;
+        this.loader = loader;
+
+        this.hits = metrics.meter(MetricRegistry.name(ProblemCache.class, "hits"));
+        this.misses = metrics.meter(MetricRegistry.name(ProblemCache.class, "misses"));
+        this.evictions = metrics.meter(MetricRegistry.name(ProblemCache.class, "evictions"));
+
+        metrics.register(MetricRegistry.name(ProblemCache.class, "bytes"), (Gauge<Long>) () -> {
+            synchronized (this)
+            {
+                return this.bytes;
+            }
+        });
+        metrics.register(MetricRegistry.name(ProblemCache.class, "problems"), (Gauge<Integer>) () -> {
+            synchronized (this)
+            {
+                return this.entries.size();
+            }
+        });
+    }
+
+    /**
+     * Register a listener for invalidations.
+     *
+     * @param listener the listener
+     */
+    public void addInvalidationListener(InvalidationListener listener)
+    {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Start watching the problem directory for changes.
+     */
+    public void start()
+    {
+        try
+        {
+            this.watchThread = new WatchThread(this.problems.getFileSystem().newWatchService());
+            this.watchThread.register(this.problems);
+            this.watchThread.start();
+        }
+        catch (IOException e)
+        {
+            log.warn("Failed to watch problem definitions; changes will not be noticed", e);
+            return;
+        }
+
+        this.refreshAvailable();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.fingerprinter.shutdownNow();
+
+        if (this.watchThread != null)
+            this.watchThread.close();
+    }
+
+    /**
+     * List the available problems.
+     *
+     * @return the problem names
+     * @throws IOException if the problems can't be listed
+     */
+    public List<String> getAvailable() throws IOException
+    {
+        List<String> available = this.available;
+        if (available != null)
+            return available;
+
+        return ProblemCache.listAvailable(this.problems);
+    }
+
+    /**
+     * Retrieve a problem definition, loading it if it isn't cached.
+     *
+     * @param name the problem name
+     * @return the problem definition
+     * @throws IOException if the problem can't be loaded
+     */
+    public Problem get(String name) throws IOException
+    {
+        long generation;
+
+        synchronized (this)
+        {
+            Entry entry = this.entries.get(name);
+            if (entry != null)
+            {
+                this.hits.mark();
+                return entry.problem;
+            }
+
+            generation = this.generation;
+        }
+
+        this.misses.mark();
+
+        FutureTask<Problem> task = new FutureTask<>(() -> this.loader.load(name));
+        FutureTask<Problem> existing = this.loading.putIfAbsent(name, task);
+
+        if (existing != null)
+            return this.await(existing);
+
+        Problem problem;
+        try
+        {
+            task.run();
+            problem = this.await(task);
+        }
+        finally
+        {
+            this.loading.remove(name, task);
+        }
+
+        this.put(name, problem, generation);
+
+        return problem;
+    }
+
+    /**
+     * Retrieve the fingerprints of a cached problem's expected outputs.
+     *
+     * @param name the problem name
+     * @param problem the problem definition, as {@link #get retrieved}
+     * @return the fingerprints, by case, or <code>null</code> if the problem
+     *         is no longer cached or hasn't been fingerprinted yet
+     */
+    public synchronized Map<ProblemCase, Fingerprint> getFingerprints(String name, Problem problem)
+    {
+        Entry entry = this.entries.get(name);
+        if (entry == null || entry.problem != problem)
+            return null;
+
+        return entry.fingerprints;
+    }
+
+    /**
+     * Drop a problem from the cache.
+     *
+     * @param name the problem name
+     */
+    public void invalidate(String name)
+    {
+        synchronized (this)
+        {
+            this.generation++;
+
+            Entry entry = this.entries.remove(name);
+            if (entry != null)
+                this.bytes -= entry.bytes;
+        }
+
+        this.listeners.forEach(listener -> listener.invalidated(name));
+    }
+
+    /**
+     * Drop every problem from the cache.
+     */
+    public void invalidateAll()
+    {
+        synchronized (this)
+        {
+            this.generation++;
+            this.entries.clear();
+            this.bytes = 0;
+        }
+
+        this.listeners.forEach(InvalidationListener::invalidatedAll);
+    }
+
+    private synchronized void put(String name, Problem problem, long generation)
+    {
+        long size = ProblemCache.weigh(problem);
+
+        /* If the cache has been invalidated since we started loading, the
+         * definition may already be stale. */
+        if (generation != this.generation || size > this.maxBytes)
+            return;
+
+        Entry entry = new Entry(problem, size);
+        Entry previous = this.entries.put(name, entry);
+        if (previous != null)
+            this.bytes -= previous.bytes;
+        this.bytes += size;
+
+        this.fingerprinter.execute(() -> entry.fingerprint());
+
+        Iterator<Map.Entry<String, Entry>> eldest = this.entries.entrySet().iterator();
+        while ((this.bytes > this.maxBytes || this.entries.size() > this.maxProblems) && eldest.hasNext())
+        {
+            this.bytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+            this.evictions.mark();
+        }
+    }
+
+    /**
+     * List the available problems again, for as long as changes are being
+     * watched.
+     */
+    private void refreshAvailable()
+    {
+        try
+        {
+            this.available = ProblemCache.listAvailable(this.problems);
+        }
+        catch (IOException e)
+        {
+            log.warn("Failed to list available problems", e);
+            this.available = null;
+        }
+    }
+
+    private static List<String> listAvailable(Path problems) throws IOException
+    {
+        ArrayList<String> available = new ArrayList<>();
+        for (String problem : Problems.availableProblems(problems))
+            available.add(problem);
+
+        return Collections.unmodifiableList(available);
+    }
+
+    private Problem await(FutureTask<Problem> task) throws IOException
+    {
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading problem", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Determine the size of a problem for the purposes of cache eviction.
+     *
+     * @param problem the problem
+     * @return the total size of the problem's expected outputs held on the
+     *         heap
+     */
+    static long weigh(Problem problem)
+    {
+        long size = 0;
+        for (ProblemCase problemCase : problem.getCases())
+            if (!(problemCase instanceof MappedProblemCase) && !(problemCase instanceof LazyProblemCase)
+                    && problemCase.getOutput() != null)
+                size += problemCase.getOutput().length;
+
+        return size;
+    }
+
+    private static class Entry
+    {
+        final Problem problem;
+        final long bytes;
+        /**
+         * The fingerprints of the problem's expected outputs, by case, or
+         * <code>null</code> until they've been computed.
+         */
+        volatile Map<ProblemCase, Fingerprint> fingerprints;
+
+        Entry(Problem problem, long bytes)
+        {
+            this.problem = problem;
+            this.bytes = bytes;
+        }
+
+        void fingerprint()
+        {
+            IdentityHashMap<ProblemCase, Fingerprint> fingerprints = new IdentityHashMap<>();
+            for (ProblemCase problemCase : this.problem.getCases())
+            {
+                /* Cases left on disk fingerprint themselves when they're
+                 * first judged, rather than being read here. */
+                if (!(problemCase instanceof LazyProblemCase))
+                    fingerprints.put(problemCase, Fingerprint.of(Judge.expectedOutput(problemCase)));
+            }
+
+            this.fingerprints = Collections.unmodifiableMap(fingerprints);
+        }
+    }
+
+    /**
+     * Thread to invalidate problems as their definitions change on disk.
+     *
+     * @author Samuel Coleman <samuel@seenet.ca>
+     * @since 1.0.0
+     */
+    private class WatchThread extends Thread implements Closeable
+    {
+        private final WatchService watcher;
+
+        public WatchThread(WatchService watcher)
+        {
+            super("Problem watcher thread");
+            this.setDaemon(true);
+            this.watcher = watcher;
+        }
+
+        /**
+         * Watch a directory and everything beneath it.
+         *
+         * @param directory the directory
+         * @throws IOException if the directory can't be watched
+         */
+        public void register(Path directory) throws IOException
+        {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+                {
+                    dir.register(WatchThread.this.watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        @Override
+        public void run()
+        {
+            log.info("Starting problem watcher thread");
+
+            try
+            {
+                while (true)
+                {
+                    WatchKey key = this.watcher.take();
+                    Path directory = (Path) key.watchable();
+
+                    for (WatchEvent<?> event : key.pollEvents())
+                    {
+                        if (event.kind() == OVERFLOW)
+                        {
+                            ProblemCache.this.invalidateAll();
+                            continue;
+                        }
+
+                        Path changed = directory.resolve((Path) event.context());
+                        Path relative = ProblemCache.this.problems.relativize(changed);
+
+                        log.debug("Problem definitions changed at {}", changed);
+                        ProblemCache.this.invalidate(relative.getName(0).toString());
+
+                        if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed))
+                        {
+                            try
+                            {
+                                this.register(changed);
+                            }
+                            catch (IOException e)
+                            {
+                                log.warn("Failed to watch new problem directory", e);
+                            }
+                        }
+                    }
+
+                    key.reset();
+
+                    ProblemCache.this.refreshAvailable();
+                }
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                /* If we've been interrupted or closed, just finish execution. */
+            }
+
+            log.info("Finishing problem watcher thread");
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            ProblemCache.this.available = null;
+            this.watcher.close();
+        }
+    }
+}
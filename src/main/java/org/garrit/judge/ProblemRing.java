@@ -0,0 +1,91 @@
+package org.garrit.judge;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Assign problems to judges by consistent hashing.
+ *
+ * Each judge is placed at several points around a ring of hashes, and a
+ * problem belongs to the judges found first clockwise from the hash of its
+ * name. Adding or removing a judge only moves the problems on either side of
+ * its points, so the rest stay where their data is already loaded.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ProblemRing
+{
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final TreeMap<Long, URI> ring = new TreeMap<>();
+    private final int nodes;
+
+    /**
+     * @param nodes the judges to share problems between
+     * @param virtualNodes the number of points on the ring for each judge.
+     *            More points share problems out more evenly.
+     */
+    public ProblemRing(Collection<URI> nodes, int virtualNodes)
+    {
+        LinkedHashSet<URI> distinct = new LinkedHashSet<>(nodes);
+        this.nodes = distinct.size();
+
+        for (URI node : distinct)
+            for (int i = 0; i < virtualNodes; i++)
+                this.ring.put(ProblemRing.hash(node + "#" + i), node);
+    }
+
+    /**
+     * Find the judges a problem belongs to.
+     *
+     * @param problem the problem name
+     * @param count the number of judges the problem is shared between
+     * @return the judges, in order of preference, without duplicates; fewer
+     *         than asked for if there aren't that many
+     */
+    public List<URI> owners(String problem, int count)
+    {
+        int wanted = Math.min(count, this.nodes);
+        ArrayList<URI> owners = new ArrayList<>(wanted);
+
+        /* Walk clockwise from the problem's hash, wrapping around once. */
+        long hash = ProblemRing.hash(problem);
+        ProblemRing.collect(this.ring.tailMap(hash).values(), owners, wanted);
+        ProblemRing.collect(this.ring.headMap(hash).values(), owners, wanted);
+
+        return owners;
+    }
+
+    private static void collect(Collection<URI> nodes, List<URI> owners, int wanted)
+    {
+        for (URI node : nodes)
+        {
+            if (owners.size() >= wanted)
+                return;
+            if (!owners.contains(node))
+                owners.add(node);
+        }
+    }
+
+    /**
+     * @return the number of distinct judges on the ring
+     */
+    public int size()
+    {
+        return this.nodes;
+    }
+
+    private static long hash(String key)
+    {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+}
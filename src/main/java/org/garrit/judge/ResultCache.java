@@ -0,0 +1,381 @@
+package org.garrit.judge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Remember the results of judging case output, so that identical output for
+ * the same case isn't judged twice.
+ *
+ * Results are keyed by a hash of everything that goes into judging a case:
+ * the problem and case names, the judge settings, and the
+ * {@link Fingerprint fingerprints} of the expected and execution outputs.
+ * Since the expected output is part of the key, changing a problem makes its
+ * old results unreachable rather than wrong. The cache is bounded by the
+ * number of results it holds, evicting the least recently used first.
+ *
+ * Results may be kept in a {@link Journal journal}, so that they survive a
+ * restart. Evicted results are acknowledged in the journal, and results still
+ * being used are rewritten once they're older than the cache is long, so that
+ * old journal segments can be deleted.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Slf4j
+public class ResultCache implements Closeable
+{
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static final int KEY_BYTES = HASH.bits() / 8;
+    /**
+     * Key, value, minimum and maximum value, mismatch token and offset.
+     */
+    private static final int RECORD_BYTES = KEY_BYTES + 3 * 4 + 2 * 8;
+    /**
+     * Stands in for a missing mismatch token or offset in the journal.
+     */
+    private static final long ABSENT = -1;
+
+    private final int maxResults;
+    private final Journal journal;
+
+    /**
+     * Cached results, in order of least to most recently used.
+     */
+    private final LinkedHashMap<HashCode, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * The sequence number of the latest result written to the journal.
+     */
+    private long lastSequence = ABSENT;
+
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+
+    /**
+     * Create a cache held only in memory.
+     *
+     * @param maxResults the number of results to keep
+     * @param metrics the registry in which to report cache metrics
+     */
+    public ResultCache(int maxResults, MetricRegistry metrics)
+    {
+        this(maxResults, null, metrics);
+    }
+
+    /**
+     * Create a cache, optionally backed by a journal, reading back any results
+     * in it.
+     *
+     * @param maxResults the number of results to keep
+     * @param journal the journal, or <code>null</code> to keep results only
+     *            in memory
+     * @param metrics the registry in which to report cache metrics
+     */
+    public ResultCache(int maxResults, Journal journal, MetricRegistry metrics)
+    {
+        this.maxResults = maxResults;
+        this.journal = journal;
+
+        this.hits = metrics.meter(MetricRegistry.name(ResultCache.class, "hits"));
+        this.misses = metrics.meter(MetricRegistry.name(ResultCache.class, "misses"));
+        this.evictions = metrics.meter(MetricRegistry.name(ResultCache.class, "evictions"));
+
+        metrics.register(MetricRegistry.name(ResultCache.class, "results"), (Gauge<Integer>) () -> {
+            synchronized (this)
+            {
+                return this.results.size();
+            }
+        });
+        metrics.register(MetricRegistry.name(ResultCache.class, "hit-ratio"), new RatioGauge()
+        {
+            @Override
+            protected Ratio getRatio()
+            {
+                double hits = ResultCache.this.hits.getFiveMinuteRate();
+                return Ratio.of(hits, hits + ResultCache.this.misses.getFiveMinuteRate());
+            }
+        });
+
+        if (journal != null)
+            this.replay();
+    }
+
+    /**
+     * Compute the key of a result.
+     *
+     * @param problem the problem name
+     * @param problemCase the case name
+     * @param settings the problem's judge settings
+     * @param expected the fingerprint of the expected output
+     * @param output the fingerprint of the execution output
+     * @return the key
+     */
+    public static HashCode key(String problem, String problemCase, JudgeSettings settings, Fingerprint expected,
+            Fingerprint output)
+    {
+        Hasher hasher = HASH.newHasher();
+        ResultCache.putString(hasher, problem);
+        ResultCache.putString(hasher, problemCase);
+        ResultCache.putString(hasher, settings.getJudge());
+
+        /* Parameters are hashed in a stable order. */
+        TreeMap<String, String> parameters = new TreeMap<>(settings.getParameters());
+        hasher.putInt(parameters.size());
+        for (Map.Entry<String, String> parameter : parameters.entrySet())
+        {
+            ResultCache.putString(hasher, parameter.getKey());
+            ResultCache.putString(hasher, parameter.getValue());
+        }
+
+        for (Fingerprint fingerprint : new Fingerprint[] {expected, output})
+        {
+            hasher.putLong(fingerprint.getLength());
+            hasher.putBytes(fingerprint.getHash().asBytes());
+        }
+
+        return hasher.hash();
+    }
+
+    /**
+     * Retrieve the result of judging identical output.
+     *
+     * @param key the result's {@link #key key}
+     * @param executionCase the execution case being judged
+     * @return the result, as a judged copy of the execution case, or
+     *         <code>null</code> if there's none cached
+     */
+    public JudgementCase get(HashCode key, ExecutionCase executionCase)
+    {
+        Result result;
+
+        synchronized (this)
+        {
+            result = this.results.get(key);
+            if (result == null)
+            {
+                this.misses.mark();
+                return null;
+            }
+
+            this.hits.mark();
+
+            /* Rewrite results still in use once they're old enough to be
+             * holding up deletion of the oldest journal segments. */
+            if (this.journal != null && result.sequence + this.maxResults < this.lastSequence)
+                this.record(key, result);
+        }
+
+        return result.judge(executionCase);
+    }
+
+    /**
+     * Cache a result.
+     *
+     * @param key the result's {@link #key key}
+     * @param judgementCase the judged case
+     */
+    public synchronized void put(HashCode key, JudgementCase judgementCase)
+    {
+        if (this.maxResults <= 0)
+            return;
+
+        Result result = new Result(judgementCase);
+        Result previous = this.results.put(key, result);
+        if (previous != null)
+            this.acknowledge(previous);
+        this.record(key, result);
+
+        this.evict();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.journal != null)
+            this.journal.close();
+    }
+
+    private void evict()
+    {
+        Iterator<Result> eldest = this.results.values().iterator();
+        while (this.results.size() > this.maxResults && eldest.hasNext())
+        {
+            this.acknowledge(eldest.next());
+            eldest.remove();
+            this.evictions.mark();
+        }
+    }
+
+    /**
+     * Write a result to the journal, acknowledging any earlier record of it.
+     */
+    private void record(HashCode key, Result result)
+    {
+        if (this.journal == null)
+            return;
+
+        this.acknowledge(result);
+
+        try
+        {
+            result.sequence = this.journal.append(result.encode(key));
+            this.lastSequence = result.sequence;
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to journal judgement result; it will be forgotten on restart", e);
+        }
+    }
+
+    private void acknowledge(Result result)
+    {
+        if (this.journal == null || result.sequence == ABSENT)
+            return;
+
+        try
+        {
+            this.journal.acknowledge(result.sequence);
+            result.sequence = ABSENT;
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to acknowledge journaled judgement result", e);
+        }
+    }
+
+    private synchronized void replay()
+    {
+        for (Map.Entry<Long, byte[]> entry : this.journal.replay().entrySet())
+        {
+            ByteBuffer record = ByteBuffer.wrap(entry.getValue());
+            if (record.remaining() != RECORD_BYTES)
+            {
+                log.error("Malformed journaled judgement result; dropping it");
+                continue;
+            }
+
+            byte[] key = new byte[KEY_BYTES];
+            record.get(key);
+
+            Result result = new Result(record);
+            result.sequence = entry.getKey();
+            this.lastSequence = Math.max(this.lastSequence, result.sequence);
+
+            Result previous = this.results.put(HashCode.fromBytes(key), result);
+            if (previous != null)
+                this.acknowledge(previous);
+        }
+
+        this.evict();
+
+        if (!this.results.isEmpty())
+            log.info("Replayed {} judgement results from journal", this.results.size());
+    }
+
+    private static void putString(Hasher hasher, String string)
+    {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        hasher.putInt(bytes.length);
+        hasher.putBytes(bytes);
+    }
+
+    /**
+     * The outcome of judging a case, apart from the case itself.
+     */
+    private static class Result
+    {
+        final int value;
+        final int valueMin;
+        final int valueMax;
+        final Long mismatchToken;
+        final Long mismatchOffset;
+        /**
+         * The sequence number of the result in the journal, if it's in one.
+         */
+        long sequence = ABSENT;
+
+        Result(JudgementCase judgementCase)
+        {
+            this.value = judgementCase.getValue();
+            this.valueMin = judgementCase.getValueMin();
+            this.valueMax = judgementCase.getValueMax();
+
+            if (judgementCase instanceof MismatchJudgementCase)
+            {
+                this.mismatchToken = ((MismatchJudgementCase) judgementCase).getMismatchToken();
+                this.mismatchOffset = ((MismatchJudgementCase) judgementCase).getMismatchOffset();
+            }
+            else
+            {
+                this.mismatchToken = null;
+                this.mismatchOffset = null;
+            }
+        }
+
+        Result(ByteBuffer record)
+        {
+            this.value = record.getInt();
+            this.valueMin = record.getInt();
+            this.valueMax = record.getInt();
+
+            long mismatchToken = record.getLong();
+            long mismatchOffset = record.getLong();
+            this.mismatchToken = mismatchToken == ABSENT ? null : mismatchToken;
+            this.mismatchOffset = mismatchOffset == ABSENT ? null : mismatchOffset;
+        }
+
+        byte[] encode(HashCode key)
+        {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            record.put(key.asBytes());
+            record.putInt(this.value);
+            record.putInt(this.valueMin);
+            record.putInt(this.valueMax);
+            record.putLong(this.mismatchToken == null ? ABSENT : this.mismatchToken);
+            record.putLong(this.mismatchOffset == null ? ABSENT : this.mismatchOffset);
+
+            return record.array();
+        }
+
+        JudgementCase judge(ExecutionCase executionCase)
+        {
+            JudgementCase judgementCase;
+            if (this.mismatchToken != null || this.mismatchOffset != null)
+            {
+                MismatchJudgementCase mismatch = new MismatchJudgementCase(executionCase);
+                mismatch.setMismatchToken(this.mismatchToken);
+                mismatch.setMismatchOffset(this.mismatchOffset);
+                judgementCase = mismatch;
+            }
+            else
+                judgementCase = new JudgementCase(executionCase);
+
+            judgementCase.setValue(this.value);
+            judgementCase.setValueMin(this.valueMin);
+            judgementCase.setValueMax(this.valueMax);
+
+            return judgementCase;
+        }
+    }
+}
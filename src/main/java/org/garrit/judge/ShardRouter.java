@@ -0,0 +1,265 @@
+package org.garrit.judge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import javax.ws.rs.core.Response;
+
+import lombok.Getter;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.garrit.common.messages.Execution;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Share problems between a group of judges, so that each problem's data is
+ * only loaded by the few judges it's {@link ProblemRing assigned} to.
+ *
+ * Executions and streamed output for a problem belonging to another judge are
+ * forwarded to it, and its response passed back as it stands. Forwarded
+ * requests are marked as such, and never forwarded again, so judges which
+ * briefly disagree on who owns a problem can't pass requests back and forth.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ShardRouter implements Closeable
+{
+    /**
+     * The query parameter marking a forwarded request.
+     */
+    public static final String FORWARDED = "forwarded";
+
+    /**
+     * This judge, as its peers reach it.
+     */
+    @Getter
+    private final URI self;
+    private final ProblemRing ring;
+    /**
+     * The number of judges each problem is shared between.
+     */
+    private final int replicas;
+
+    private final WireFormat format;
+    private final ObjectMapper mapper;
+    private final CloseableHttpClient client;
+
+    private final Meter forwards;
+    private final Meter forwardFailures;
+
+    /**
+     * @param config the judge configuration, giving this judge and its peers
+     * @param metrics the registry in which to report forwarding metrics
+     * @throws IllegalArgumentException if this judge's own address isn't
+     *             configured
+     */
+    public ShardRouter(JudgeConfiguration config, MetricRegistry metrics)
+    {
+        if (config.getSelf() == null)
+            throw new IllegalArgumentException("Judges sharing problems with peers need their own address");
+
+        this.self = config.getSelf();
+        this.replicas = config.getShardReplicas();
+
+        LinkedHashSet<URI> nodes = new LinkedHashSet<>(config.getPeers());
+        nodes.add(this.self);
+        this.ring = new ProblemRing(nodes, config.getShardVirtualNodes());
+
+        this.format = config.getNegotiatorFormat();
+        this.mapper = this.format.newMapper();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getPeerConnections() * nodes.size());
+        connectionManager.setDefaultMaxPerRoute(config.getPeerConnections());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) config.getNegotiatorConnectTimeout().toMilliseconds())
+                .setConnectionRequestTimeout((int) config.getNegotiatorConnectTimeout().toMilliseconds())
+                .setSocketTimeout((int) config.getNegotiatorTimeout().toMilliseconds())
+                .build();
+
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+
+        this.forwards = metrics.meter(MetricRegistry.name(ShardRouter.class, "forwarded"));
+        this.forwardFailures = metrics.meter(MetricRegistry.name(ShardRouter.class, "forward-failures"));
+    }
+
+    /**
+     * @param problem the problem name
+     * @return whether the problem is assigned to this judge
+     */
+    public boolean owns(String problem)
+    {
+        return this.ring.owners(problem, this.replicas).contains(this.self);
+    }
+
+    /**
+     * Decide where an execution is judged. An execution of a problem shared
+     * between several other judges goes to one of them chosen by its ID, so
+     * that they share the load.
+     *
+     * @param problem the problem name
+     * @param id the execution ID
+     * @return the judge the execution belongs to, or <code>null</code> if
+     *         it's this one
+     */
+    public URI route(String problem, int id)
+    {
+        List<URI> owners = this.ring.owners(problem, this.replicas);
+        if (owners.contains(this.self))
+            return null;
+
+        return owners.get(Math.floorMod(id, owners.size()));
+    }
+
+    /**
+     * Forward an execution to the judge it belongs to.
+     *
+     * @param peer the judge
+     * @param execution the execution
+     * @param priority the class of submission
+     * @param submitter who made the submission, or <code>null</code> if
+     *            unknown
+     * @param failFast whether to judge fail-fast, or <code>null</code> to
+     *            leave it to the problem's settings
+     * @param compression the compression of the output of each case
+     * @return the judge's response
+     * @throws IOException if the execution couldn't be forwarded
+     */
+    public Response submit(URI peer, Execution execution, String priority, String submitter, Boolean failFast,
+            Compression compression) throws IOException
+    {
+        URIBuilder uri = this.uri(peer, "judge").addParameter("priority", priority);
+        if (submitter != null)
+            uri.addParameter("submitter", submitter);
+        if (failFast != null)
+            uri.addParameter("failFast", failFast.toString());
+
+        HttpPost post = new HttpPost(ShardRouter.build(uri));
+        post.setHeader("Content-Type", this.format.getMediaType());
+        if (compression != Compression.IDENTITY)
+            post.setHeader(Compression.OUTPUT_HEADER, compression.toString());
+        post.setEntity(new ByteArrayEntity(this.mapper.writeValueAsBytes(execution)));
+
+        return this.forward(post);
+    }
+
+    /**
+     * Forward streamed case output to the judge its execution belongs to.
+     *
+     * @param peer the judge
+     * @param id the execution ID
+     * @param problem the problem name
+     * @param name the case name
+     * @param contentType the type of the output, or <code>null</code> if
+     *            unknown
+     * @param accept the types the verdict may be returned as, or
+     *            <code>null</code> if any
+     * @param output the case output
+     * @return the judge's response
+     * @throws IOException if the output couldn't be forwarded
+     */
+    public Response stream(URI peer, int id, String problem, String name, String contentType, String accept,
+            InputStream output) throws IOException
+    {
+        URIBuilder uri = this.uri(peer, "judge/" + id + "/cases/" + name).addParameter("problem", problem);
+
+        HttpPut put = new HttpPut(ShardRouter.build(uri));
+        InputStreamEntity entity = new InputStreamEntity(output);
+        entity.setChunked(true);
+        put.setEntity(entity);
+        if (contentType != null)
+            put.setHeader("Content-Type", contentType);
+        if (accept != null)
+            put.setHeader("Accept", accept);
+
+        return this.forward(put);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.client.close();
+    }
+
+    /**
+     * Send a request on to a peer, passing its response back.
+     */
+    private Response forward(HttpEntityEnclosingRequestBase request) throws IOException
+    {
+        try (CloseableHttpResponse response = this.client.execute(request))
+        {
+            Response.ResponseBuilder forwarded = Response.status(response.getStatusLine().getStatusCode());
+
+            Header retryAfter = response.getFirstHeader("Retry-After");
+            if (retryAfter != null)
+                forwarded.header("Retry-After", retryAfter.getValue());
+
+            HttpEntity entity = response.getEntity();
+            if (entity != null)
+            {
+                byte[] body = EntityUtils.toByteArray(entity);
+                if (body.length > 0)
+                    forwarded.entity(body)
+                            .type(entity.getContentType() == null ? null : entity.getContentType().getValue());
+            }
+
+            this.forwards.mark();
+            return forwarded.build();
+        }
+        catch (IOException e)
+        {
+            this.forwardFailures.mark();
+            throw e;
+        }
+    }
+
+    /**
+     * Build the address of a path on a peer, marked as forwarded.
+     */
+    private URIBuilder uri(URI peer, String path)
+    {
+        String base = peer.getPath() == null ? "" : peer.getPath();
+        if (!base.endsWith("/"))
+            base += "/";
+
+        return new URIBuilder(peer).setPath(base + path).addParameter(FORWARDED, "true");
+    }
+
+    private static URI build(URIBuilder uri) throws IOException
+    {
+        try
+        {
+            return uri.build();
+        }
+        catch (URISyntaxException e)
+        {
+            throw new IOException("Invalid peer address", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.garrit.judge;
+
+import lombok.Getter;
+
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+
+/**
+ * A case left unjudged because an earlier case of the execution failed and
+ * the execution was judged fail-fast. It's given the lowest value the failed
+ * case could have had.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class SkippedJudgementCase extends JudgementCase
+{
+    /**
+     * Always <code>true</code>, so that skipped cases can be told apart from
+     * judged ones.
+     */
+    @Getter
+    private final boolean skipped = true;
+
+    public SkippedJudgementCase()
+    {
+        super();
+    }
+
+    public SkippedJudgementCase(ExecutionCase executionCase)
+    {
+        super(executionCase);
+    }
+}
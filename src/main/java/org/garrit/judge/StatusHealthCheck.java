@@ -1,16 +1,37 @@
 package org.garrit.judge;
 
+import io.dropwizard.util.Duration;
+
 import org.garrit.common.messages.statuses.Status;
 
 import com.codahale.metrics.health.HealthCheck;
 
+/**
+ * Check that the judge is reporting its capabilities, and that neither
+ * judging nor reporting has fallen too far behind. Only counters kept up to
+ * date as the judge works are read, so the check is cheap however often it's
+ * polled.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
 public class StatusHealthCheck extends HealthCheck
 {
     private final Status status;
+    private final JudgementManager judge;
+    /**
+     * The longest, in milliseconds, an execution may wait to be judged, and a
+     * judgement or error to be reported, before the judge is unhealthy.
+     */
+    private final long maxQueueAge;
+    private final long maxReportingLag;
 
-    public StatusHealthCheck(Status status)
+    public StatusHealthCheck(Status status, JudgementManager judge, Duration maxQueueAge, Duration maxReportingLag)
     {
         this.status = status;
+        this.judge = judge;
+        this.maxQueueAge = maxQueueAge.toMilliseconds();
+        this.maxReportingLag = maxReportingLag.toMilliseconds();
     }
 
     @Override
@@ -19,6 +40,14 @@ public class StatusHealthCheck extends HealthCheck
         if (this.status.getCapabilityStatuses().size() == 0)
             return Result.unhealthy("The service is reporting no capabilities");
 
-        return Result.healthy();
+        JudgementManager.Load load = this.judge.getLoad();
+        if (load.getQueueAge() > this.maxQueueAge)
+            return Result.unhealthy("The oldest of %d queued executions has waited %dms", load.getQueued(),
+                    load.getQueueAge());
+        if (load.getReportingLag() > this.maxReportingLag)
+            return Result.unhealthy("The oldest undelivered report has waited %dms", load.getReportingLag());
+
+        return Result.healthy("%d queued, oldest %dms; %d reports waiting, oldest %dms", load.getQueued(),
+                load.getQueueAge(), load.getOutgoing() + load.getErrors(), load.getReportingLag());
     }
-}
\ No newline at end of file
+}
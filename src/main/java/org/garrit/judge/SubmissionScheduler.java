@@ -0,0 +1,356 @@
+package org.garrit.judge;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.garrit.common.messages.Execution;
+
+/**
+ * Decide the order in which queued executions are judged.
+ *
+ * Executions are queued in {@link Priority priority classes}, and each class
+ * is served only once every higher class is empty. Within a class, executions
+ * are taken in turn from each submitter, and each submitter's in turn from
+ * each problem, so that neither a flood of resubmissions from one submitter
+ * nor a rejudge of one problem holds up everyone else. Executions of the same
+ * submitter and problem are taken in the order they were queued.
+ *
+ * So that lower classes aren't starved while higher ones are busy, an
+ * execution which has waited in its class longer than the starvation
+ * threshold is promoted to the class above, where it takes its turn with the
+ * rest. It may be promoted again once it's waited as long in that class. A
+ * backlog of starved executions therefore still takes turns, by class and by
+ * submitter, rather than being taken in the order it arrived.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class SubmissionScheduler
+{
+    /**
+     * Classes of execution, from most to least urgent.
+     */
+    public enum Priority
+    {
+        /**
+         * Submissions made during a live contest.
+         */
+        CONTEST,
+        /**
+         * Rejudges of earlier submissions.
+         */
+        REJUDGE,
+        /**
+         * Practice submissions.
+         */
+        PRACTICE;
+
+        /**
+         * Parse a priority, ignoring case.
+         *
+         * @param name the priority name
+         * @return the priority
+         * @throws IllegalArgumentException if there's no such priority
+         */
+        public static Priority fromString(String name)
+        {
+            return Priority.valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The most executions which may be queued at once.
+     */
+    private final int capacity;
+    /**
+     * How long, in nanoseconds, an execution may wait in its class before
+     * it's promoted to the class above.
+     */
+    private final long starvationThreshold;
+
+    private final EnumMap<Priority, PriorityClass> classes = new EnumMap<>(Priority.class);
+    private int size = 0;
+
+    /**
+     * @param capacity the most executions which may be queued at once
+     * @param starvationThreshold how long, in nanoseconds, an execution may
+     *            wait in its class before it's promoted to the class above
+     */
+    public SubmissionScheduler(int capacity, long starvationThreshold)
+    {
+        this.capacity = capacity;
+        this.starvationThreshold = starvationThreshold;
+
+        for (Priority priority : Priority.values())
+            this.classes.put(priority, new PriorityClass());
+    }
+
+    /**
+     * Queue an execution, unless the queue is full.
+     *
+     * @param queuedExecution the execution
+     * @return whether the execution was queued
+     */
+    synchronized boolean offer(QueuedExecution queuedExecution)
+    {
+        if (this.size >= this.capacity)
+            return false;
+
+        this.classes.get(queuedExecution.level).add(queuedExecution);
+        this.size++;
+        this.notify();
+
+        return true;
+    }
+
+    /**
+     * Take the next execution to be judged, waiting for one if necessary.
+     *
+     * @return the execution
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized QueuedExecution take() throws InterruptedException
+    {
+        while (this.size == 0)
+            this.wait();
+
+        this.size--;
+        this.promoteStarved();
+
+        for (PriorityClass priorityClass : this.classes.values())
+            if (priorityClass.size > 0)
+                return priorityClass.poll();
+
+        throw new IllegalStateException("Queue is empty");
+    }
+
+    /**
+     * Promote every execution which has waited in its class longer than the
+     * starvation threshold to the class above. Classes are promoted from the
+     * top down, so that an execution rises at most one class at a time.
+     */
+    private void promoteStarved()
+    {
+        long now = System.nanoTime();
+        Priority[] priorities = Priority.values();
+
+        for (int i = 1; i < priorities.length; i++)
+        {
+            PriorityClass from = this.classes.get(priorities[i]);
+            PriorityClass to = this.classes.get(priorities[i - 1]);
+
+            QueuedExecution oldest;
+            while ((oldest = from.oldest()) != null && now - oldest.entered > this.starvationThreshold)
+            {
+                from.remove(oldest);
+                oldest.level = priorities[i - 1];
+                oldest.entered = now;
+                to.add(oldest);
+            }
+        }
+    }
+
+    /**
+     * @return the number of queued executions
+     */
+    synchronized int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * @param priority the priority class
+     * @return the number of queued executions in the class, including any
+     *         promoted to it
+     */
+    synchronized int size(Priority priority)
+    {
+        return this.classes.get(priority).size;
+    }
+
+    /**
+     * An execution waiting to be judged.
+     */
+    static class QueuedExecution
+    {
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        final Execution execution;
+        /**
+         * The class the execution was submitted in.
+         */
+        final Priority priority;
+        /**
+         * Who made the submission, or the empty string if unknown.
+         */
+        final String submitter;
+        /**
+         * Whether to stop judging at the first failed case, or
+         * <code>null</code> to leave it to the problem's settings.
+         */
+        final Boolean failFast;
+        /**
+         * The compression of the output of each case.
+         */
+        final Compression compression;
+        /**
+         * The size of the execution's output, reserved against the queue's
+         * limit.
+         */
+        final long bytes;
+        /**
+         * When the execution was queued, from {@link System#nanoTime()}.
+         */
+        final long enqueued = System.nanoTime();
+        /**
+         * Orders executions by when they were created, uniquely.
+         */
+        final long sequence = SEQUENCE.getAndIncrement();
+        /**
+         * The class the execution is queued in, having been promoted from its
+         * own class if it's waited too long.
+         */
+        Priority level;
+        /**
+         * When the execution entered the class it's queued in, from
+         * {@link System#nanoTime()}.
+         */
+        long entered = this.enqueued;
+
+        QueuedExecution(Execution execution, Priority priority, String submitter, Boolean failFast,
+                Compression compression, long bytes)
+        {
+            this.execution = execution;
+            this.priority = priority;
+            this.level = priority;
+            this.submitter = submitter == null ? "" : submitter;
+            this.failFast = failFast;
+            this.compression = compression;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * The executions queued in a single priority class.
+     */
+    private static class PriorityClass
+    {
+        /**
+         * Submitters with queued executions, in the order they're to be
+         * served.
+         */
+        final LinkedHashMap<String, Submitter> submitters = new LinkedHashMap<>();
+        /**
+         * Queued executions in the order they entered the class. Executions
+         * are dropped as soon as they're taken, so that the queue never holds
+         * on to output which has already been judged.
+         */
+        final LinkedHashSet<QueuedExecution> arrivals = new LinkedHashSet<>();
+        int size = 0;
+
+        void add(QueuedExecution queuedExecution)
+        {
+            this.submitters.computeIfAbsent(queuedExecution.submitter, key -> new Submitter()).add(queuedExecution);
+            this.arrivals.add(queuedExecution);
+            this.size++;
+        }
+
+        /**
+         * @return the execution which has waited longest in the class, or
+         *         <code>null</code> if there's none
+         */
+        QueuedExecution oldest()
+        {
+            return this.arrivals.isEmpty() ? null : this.arrivals.iterator().next();
+        }
+
+        /**
+         * Take the next execution in turn.
+         */
+        QueuedExecution poll()
+        {
+            Iterator<Map.Entry<String, Submitter>> next = this.submitters.entrySet().iterator();
+            Map.Entry<String, Submitter> entry = next.next();
+            next.remove();
+
+            QueuedExecution queuedExecution = entry.getValue().poll();
+            if (!entry.getValue().problems.isEmpty())
+                this.submitters.put(entry.getKey(), entry.getValue());
+
+            return this.taken(queuedExecution);
+        }
+
+        /**
+         * Take an execution out of turn. It must be the oldest of its
+         * submitter's executions of its problem.
+         */
+        void remove(QueuedExecution queuedExecution)
+        {
+            Submitter submitter = this.submitters.get(queuedExecution.submitter);
+            submitter.remove(queuedExecution);
+            if (submitter.problems.isEmpty())
+                this.submitters.remove(queuedExecution.submitter);
+
+            this.taken(queuedExecution);
+        }
+
+        private QueuedExecution taken(QueuedExecution queuedExecution)
+        {
+            this.arrivals.remove(queuedExecution);
+            this.size--;
+
+            return queuedExecution;
+        }
+    }
+
+    /**
+     * The executions queued by a single submitter in a priority class.
+     */
+    private static class Submitter
+    {
+        /**
+         * Queued executions by problem, in the order the problems are to be
+         * served.
+         */
+        final LinkedHashMap<String, ArrayDeque<QueuedExecution>> problems = new LinkedHashMap<>();
+
+        void add(QueuedExecution queuedExecution)
+        {
+            this.problems.computeIfAbsent(Submitter.problem(queuedExecution), key -> new ArrayDeque<>())
+                    .add(queuedExecution);
+        }
+
+        QueuedExecution poll()
+        {
+            Iterator<Map.Entry<String, ArrayDeque<QueuedExecution>>> next = this.problems.entrySet().iterator();
+            Map.Entry<String, ArrayDeque<QueuedExecution>> entry = next.next();
+            next.remove();
+
+            QueuedExecution queuedExecution = entry.getValue().poll();
+            if (!entry.getValue().isEmpty())
+                this.problems.put(entry.getKey(), entry.getValue());
+
+            return queuedExecution;
+        }
+
+        void remove(QueuedExecution queuedExecution)
+        {
+            String problem = Submitter.problem(queuedExecution);
+            ArrayDeque<QueuedExecution> queued = this.problems.get(problem);
+            queued.poll();
+            if (queued.isEmpty())
+                this.problems.remove(problem);
+        }
+
+        private static String problem(QueuedExecution queuedExecution)
+        {
+            return String.valueOf(queuedExecution.execution.getProblem());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+
+/**
+ * The token judge compares the whitespace-separated tokens of the problem
+ * case and execution output, so that any amount or kind of whitespace between
+ * tokens, and before the first or after the last, is irrelevant.
+ * 
+ * The marked value for each case is boolean: 1/1 if all tokens match, 0/1 if
+ * they don't.
+ * 
+ * Whitespace is space, <code>\t</code>, <code>\n</code>, <code>\u000b</code>,
+ * <code>\f</code> and <code>\r</code>. Outputs are compared in place without
+ * being decoded. Both are walked in lockstep for as long as they're
+ * identical, and whitespace is only looked for where they differ, so correct
+ * output costs little more than an exact comparison.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class TokenJudge extends Judge
+{
+    /**
+     * Stands in for the bytes beyond either end of an output.
+     */
+    private static final byte SPACE = ' ';
+
+    /**
+     * Register the token judge as <code>token</code>.
+     */
+    public static class Provider implements JudgeProvider
+    {
+        @Override
+        public String getName()
+        {
+            return "token";
+        }
+
+        @Override
+        public Judge newJudge(JudgeSettings settings)
+        {
+            return new TokenJudge();
+        }
+    }
+
+    public TokenJudge()
+    {
+        super();
+    }
+
+    public TokenJudge(Execution execution)
+    {
+        super(execution);
+    }
+
+    @Override
+    public JudgementCase evaluate(ProblemCase problemCase, ExecutionCase executionCase) throws IOException
+    {
+        if (executionCase == null)
+            throw new IOException("No execution for case");
+
+        JudgementCase judgementCase = new JudgementCase(executionCase);
+        judgementCase.setValue(1);
+        judgementCase.setValueMin(0);
+        judgementCase.setValueMax(1);
+
+        if (!TokenJudge.tokensMatch(Judge.expectedOutput(problemCase), Judge.actualOutput(executionCase)))
+            judgementCase.setValue(0);
+
+        return judgementCase;
+    }
+
+    @Override
+    public JudgementCase evaluateIdentical(ExecutionCase executionCase)
+    {
+        return CaseStream.verdict(executionCase, true);
+    }
+
+    /**
+     * Compare the tokens of two outputs, between their positions and limits.
+     * 
+     * @param expected the expected output
+     * @param actual the actual output
+     * @return whether every token matches
+     */
+    static boolean tokensMatch(ByteBuffer expected, ByteBuffer actual)
+    {
+        if (expected.hasArray() && actual.hasArray())
+            return TokenJudge.tokensMatch(expected.array(), expected.arrayOffset() + expected.position(),
+                    expected.arrayOffset() + expected.limit(), actual.array(),
+                    actual.arrayOffset() + actual.position(), actual.arrayOffset() + actual.limit());
+
+        int i = expected.position();
+        int j = actual.position();
+        int expectedEnd = expected.limit();
+        int actualEnd = actual.limit();
+
+        while (true)
+        {
+            while (i < expectedEnd && j < actualEnd && expected.get(i) == actual.get(j))
+            {
+                i++;
+                j++;
+            }
+
+            /* The outputs differ here, so each must be between tokens. */
+            if (!TokenJudge.atBoundary(i == expected.position() ? SPACE : expected.get(i - 1),
+                    i < expectedEnd ? expected.get(i) : SPACE)
+                    || !TokenJudge.atBoundary(j == actual.position() ? SPACE : actual.get(j - 1),
+                            j < actualEnd ? actual.get(j) : SPACE))
+                return false;
+
+            while (i < expectedEnd && TokenJudge.isWhitespace(expected.get(i)))
+                i++;
+            while (j < actualEnd && TokenJudge.isWhitespace(actual.get(j)))
+                j++;
+
+            if (i == expectedEnd || j == actualEnd)
+                return i == expectedEnd && j == actualEnd;
+            if (expected.get(i) != actual.get(j))
+                return false;
+        }
+    }
+
+    /**
+     * Compare the tokens of two outputs held in arrays.
+     * 
+     * @param expected the expected output
+     * @param i the start of the expected output
+     * @param expectedEnd the end of the expected output
+     * @param actual the actual output
+     * @param j the start of the actual output
+     * @param actualEnd the end of the actual output
+     * @return whether every token matches
+     */
+    static boolean tokensMatch(byte[] expected, int i, int expectedEnd, byte[] actual, int j, int actualEnd)
+    {
+        int expectedStart = i;
+        int actualStart = j;
+
+        while (true)
+        {
+            /* Kept free of any other test so that the JIT can unroll it. */
+            int n = Math.min(expectedEnd - i, actualEnd - j);
+            int k = 0;
+            while (k < n && expected[i + k] == actual[j + k])
+                k++;
+            i += k;
+            j += k;
+
+            if (!TokenJudge.atBoundary(i == expectedStart ? SPACE : expected[i - 1],
+                    i < expectedEnd ? expected[i] : SPACE)
+                    || !TokenJudge.atBoundary(j == actualStart ? SPACE : actual[j - 1],
+                            j < actualEnd ? actual[j] : SPACE))
+                return false;
+
+            while (i < expectedEnd && TokenJudge.isWhitespace(expected[i]))
+                i++;
+            while (j < actualEnd && TokenJudge.isWhitespace(actual[j]))
+                j++;
+
+            if (i == expectedEnd || j == actualEnd)
+                return i == expectedEnd && j == actualEnd;
+            if (expected[i] != actual[j])
+                return false;
+        }
+    }
+
+    /**
+     * @param previous the byte before the position, or whitespace at the
+     *            start of the output
+     * @param current the byte at the position, or whitespace at the end of
+     *            the output
+     * @return whether the position between the two isn't part-way through a
+     *         token
+     */
+    private static boolean atBoundary(byte previous, byte current)
+    {
+        return TokenJudge.isWhitespace(previous) || TokenJudge.isWhitespace(current);
+    }
+
+    /**
+     * Classify a byte without branching on each kind of whitespace.
+     */
+    static boolean isWhitespace(byte b)
+    {
+        return b == ' ' | (b - '\t' & 0xff) < 5;
+    }
+
+    @Override
+    public CaseStream stream(ProblemCase problemCase)
+    {
+        return new Stream(Judge.expectedOutput(problemCase));
+    }
+
+    /**
+     * Compare each chunk with the expected output a byte at a time, tracking
+     * whether the execution output is part-way through a token, since tokens
+     * may be split between chunks.
+     */
+    private static class Stream extends CaseStream
+    {
+        private final ByteBuffer expected;
+        private int position;
+        private boolean inToken = false;
+        private boolean matches = true;
+
+        Stream(ByteBuffer expected)
+        {
+            this.expected = expected;
+            this.position = expected.position();
+        }
+
+        @Override
+        public boolean write(ByteBuffer chunk)
+        {
+            if (!this.matches)
+                return false;
+
+            int end = this.expected.limit();
+
+            for (int k = chunk.position(); k < chunk.limit(); k++)
+            {
+                byte b = chunk.get(k);
+
+                if (TokenJudge.isWhitespace(b))
+                {
+                    if (this.inToken && !this.atTokenEnd())
+                        return this.matches = false;
+                    this.inToken = false;
+                    continue;
+                }
+
+                if (!this.inToken)
+                {
+                    while (this.position < end && TokenJudge.isWhitespace(this.expected.get(this.position)))
+                        this.position++;
+                    this.inToken = true;
+                }
+
+                /* Expected whitespace never equals b, so this also catches a
+                 * token running on too long. */
+                if (this.position == end || this.expected.get(this.position++) != b)
+                    return this.matches = false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public JudgementCase finish(ExecutionCase executionCase)
+        {
+            if (this.matches && this.inToken && !this.atTokenEnd())
+                this.matches = false;
+
+            int end = this.expected.limit();
+            while (this.position < end && TokenJudge.isWhitespace(this.expected.get(this.position)))
+                this.position++;
+
+            return CaseStream.verdict(executionCase, this.matches && this.position == end);
+        }
+
+        private boolean atTokenEnd()
+        {
+            return this.position == this.expected.limit() || TokenJudge.isWhitespace(this.expected.get(this.position));
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.garrit.judge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+
+/**
+ * The tolerance judge compares whitespace-separated tokens like the
+ * {@link TokenJudge token judge}, except that numeric tokens match if they're
+ * within an absolute or relative error of each other. Tokens which aren't
+ * numbers must match exactly.
+ * 
+ * The marked value for each case is boolean: 1/1 if all tokens match, 0/1 if
+ * they don't. Judged cases are {@link MismatchJudgementCase reported} with
+ * the position of the first token which doesn't match.
+ * 
+ * Numbers are decimal, optionally signed and optionally in scientific
+ * notation, such as <code>-12</code>, <code>.5</code> or
+ * <code>6.02e23</code>. They're parsed straight from the output bytes,
+ * accurate to within a unit in the last place.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ToleranceJudge extends Judge
+{
+    /**
+     * Register the tolerance judge as <code>tolerance</code>. The
+     * <code>absolute</code> and <code>relative</code> parameters give the
+     * error allowed, defaulting to {@value #DEFAULT_ERROR}.
+     */
+    public static class Provider implements JudgeProvider
+    {
+        @Override
+        public String getName()
+        {
+            return "tolerance";
+        }
+
+        @Override
+        public Judge newJudge(JudgeSettings settings)
+        {
+            return new ToleranceJudge(
+                    Provider.error(settings, "absolute"),
+                    Provider.error(settings, "relative"));
+        }
+
+        private static double error(JudgeSettings settings, String parameter)
+        {
+            String value = settings.getParameters().get(parameter);
+            if (value == null)
+                return DEFAULT_ERROR;
+
+            double error = Double.parseDouble(value);
+            if (!(error >= 0))
+                throw new IllegalArgumentException("Error must not be negative: " + parameter);
+
+            return error;
+        }
+    }
+
+    public static final double DEFAULT_ERROR = 1e-6;
+
+    /**
+     * Every power of ten which a double holds exactly.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    /**
+     * Digits beyond this many are too small to affect a double.
+     */
+    private static final long MAX_MANTISSA = 100_000_000_000_000_000L;
+    private static final int MAX_EXPONENT = 100_000;
+
+    private final double absoluteError;
+    private final double relativeError;
+
+    /**
+     * Set up a judge to be shared between executions.
+     * 
+     * @param absoluteError the largest absolute difference between matching
+     *            numbers
+     * @param relativeError the largest difference between matching numbers
+     *            relative to the expected number
+     */
+    public ToleranceJudge(double absoluteError, double relativeError)
+    {
+        super();
+        this.absoluteError = absoluteError;
+        this.relativeError = relativeError;
+    }
+
+    /**
+     * Set up the judge for a given execution.
+     * 
+     * @param execution the execution
+     * @param absoluteError the largest absolute difference between matching
+     *            numbers
+     * @param relativeError the largest difference between matching numbers
+     *            relative to the expected number
+     */
+    public ToleranceJudge(Execution execution, double absoluteError, double relativeError)
+    {
+        super(execution);
+        this.absoluteError = absoluteError;
+        this.relativeError = relativeError;
+    }
+
+    @Override
+    public JudgementCase evaluate(ProblemCase problemCase, ExecutionCase executionCase) throws IOException
+    {
+        if (executionCase == null)
+            throw new IOException("No execution for case");
+
+        MismatchJudgementCase judgementCase = new MismatchJudgementCase(executionCase);
+        judgementCase.setValue(1);
+        judgementCase.setValueMin(0);
+        judgementCase.setValueMax(1);
+
+        this.compare(Judge.expectedOutput(problemCase), Judge.actualOutput(executionCase), judgementCase);
+
+        return judgementCase;
+    }
+
+    @Override
+    public JudgementCase evaluateIdentical(ExecutionCase executionCase)
+    {
+        return CaseStream.verdict(executionCase, true);
+    }
+
+    /**
+     * Compare the tokens of two outputs, between their positions and limits,
+     * marking the judged case wrong at the first mismatch.
+     * 
+     * @param expected the expected output
+     * @param actual the actual output
+     * @param judgementCase the judged case
+     * @return whether every token matches
+     */
+    boolean compare(ByteBuffer expected, ByteBuffer actual, MismatchJudgementCase judgementCase)
+    {
+        int i = expected.position();
+        int j = actual.position();
+        int expectedEnd = expected.limit();
+        int actualEnd = actual.limit();
+
+        for (long token = 0;; token++)
+        {
+            i = ToleranceJudge.skipWhitespace(expected, i, expectedEnd);
+            j = ToleranceJudge.skipWhitespace(actual, j, actualEnd);
+
+            if (i == expectedEnd && j == actualEnd)
+                return true;
+
+            int expectedToken = i;
+            int actualToken = j;
+            i = ToleranceJudge.skipToken(expected, i, expectedEnd);
+            j = ToleranceJudge.skipToken(actual, j, actualEnd);
+
+            if (expectedToken == expectedEnd || actualToken == actualEnd
+                    || !this.tokensMatch(expected, expectedToken, i, actual, actualToken, j))
+            {
+                judgementCase.setValue(0);
+                judgementCase.setMismatchToken(token);
+                judgementCase.setMismatchOffset((long) (actualToken - actual.position()));
+
+                return false;
+            }
+        }
+    }
+
+    private boolean tokensMatch(ByteBuffer expected, int i, int expectedEnd, ByteBuffer actual, int j, int actualEnd)
+    {
+        if (expectedEnd - i == actualEnd - j)
+        {
+            int k = 0;
+            while (i + k < expectedEnd && expected.get(i + k) == actual.get(j + k))
+                k++;
+
+            if (i + k == expectedEnd)
+                return true;
+        }
+
+        double expectedNumber = ToleranceJudge.parseNumber(expected, i, expectedEnd);
+        double actualNumber = ToleranceJudge.parseNumber(actual, j, actualEnd);
+
+        /* Either isn't a number, or is too large to compare as one, so they
+         * must match exactly, and don't. */
+        if (Double.isNaN(expectedNumber) || Double.isNaN(actualNumber))
+            return false;
+
+        double difference = Math.abs(expectedNumber - actualNumber);
+        return expectedNumber == actualNumber
+                || difference <= this.absoluteError
+                || difference <= this.relativeError * Math.abs(expectedNumber);
+    }
+
+    /**
+     * Parse a decimal number from an output, without allocating.
+     * 
+     * @param output the output
+     * @param start the start of the number
+     * @param end the end of the number
+     * @return the number, or NaN if the bytes aren't a number or the number
+     *         is too large to represent
+     */
+    static double parseNumber(ByteBuffer output, int start, int end)
+    {
+        int k = start;
+        boolean negative = false;
+
+        if (k < end && (output.get(k) == '-' || output.get(k) == '+'))
+            negative = output.get(k++) == '-';
+
+        long mantissa = 0;
+        int exponent = 0;
+        boolean digits = false;
+
+        for (; k < end && ToleranceJudge.isDigit(output.get(k)); k++)
+        {
+            digits = true;
+            if (mantissa < MAX_MANTISSA)
+                mantissa = mantissa * 10 + (output.get(k) - '0');
+            else
+                exponent++;
+        }
+
+        if (k < end && output.get(k) == '.')
+        {
+            for (k++; k < end && ToleranceJudge.isDigit(output.get(k)); k++)
+            {
+                digits = true;
+                if (mantissa < MAX_MANTISSA)
+                {
+                    mantissa = mantissa * 10 + (output.get(k) - '0');
+                    exponent--;
+                }
+            }
+        }
+
+        if (!digits)
+            return Double.NaN;
+
+        if (k < end && (output.get(k) == 'e' || output.get(k) == 'E'))
+        {
+            k++;
+
+            boolean negativeExponent = false;
+            if (k < end && (output.get(k) == '-' || output.get(k) == '+'))
+                negativeExponent = output.get(k++) == '-';
+
+            if (k == end)
+                return Double.NaN;
+
+            int explicit = 0;
+            for (; k < end && ToleranceJudge.isDigit(output.get(k)); k++)
+                explicit = Math.min(explicit * 10 + (output.get(k) - '0'), MAX_EXPONENT);
+
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+
+        if (k != end)
+            return Double.NaN;
+
+        double value;
+        if (mantissa == 0)
+            value = 0;
+        else if (exponent >= 0 && exponent < POWERS_OF_TEN.length)
+            value = mantissa * POWERS_OF_TEN[exponent];
+        else if (exponent < 0 && -exponent < POWERS_OF_TEN.length)
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        else
+            value = mantissa * Math.pow(10, exponent);
+
+        /* Every number out of range would otherwise equal every other. */
+        if (Double.isInfinite(value))
+            return Double.NaN;
+
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(byte b)
+    {
+        return (b - '0' & 0xff) < 10;
+    }
+
+    private static int skipWhitespace(ByteBuffer output, int position, int end)
+    {
+        while (position < end && TokenJudge.isWhitespace(output.get(position)))
+            position++;
+
+        return position;
+    }
+
+    private static int skipToken(ByteBuffer output, int position, int end)
+    {
+        while (position < end && !TokenJudge.isWhitespace(output.get(position)))
+            position++;
+
+        return position;
+    }
+}
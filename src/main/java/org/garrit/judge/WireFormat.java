@@ -0,0 +1,65 @@
+package org.garrit.judge;
+
+import java.util.function.Supplier;
+
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+
+/**
+ * Encodings in which messages are exchanged with executors and the
+ * negotiator.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public enum WireFormat
+{
+    /**
+     * Plain JSON, with output encoded in base64.
+     */
+    JSON(MediaType.APPLICATION_JSON, JsonFactory::new),
+    /**
+     * Jackson's binary JSON, with output carried as raw bytes. By default
+     * Smile spreads binary values over seven bits per byte, so that encoded
+     * messages never contain certain marker bytes, but nothing here relies on
+     * that.
+     */
+    SMILE(SmileMediaTypes.APPLICATION_JACKSON_SMILE,
+            () -> new SmileFactory().disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT));
+
+    private final String mediaType;
+    private final Supplier<JsonFactory> factory;
+
+    private WireFormat(String mediaType, Supplier<JsonFactory> factory)
+    {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    /**
+     * @return the media type of encoded messages
+     */
+    public String getMediaType()
+    {
+        return this.mediaType;
+    }
+
+    /**
+     * Create a mapper for encoding and decoding messages. Judges may report
+     * more about a case than a plain judged case holds, so messages are
+     * decoded leniently.
+     *
+     * @return the mapper
+     */
+    public ObjectMapper newMapper()
+    {
+        return new ObjectMapper(this.factory.get())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+}
@@ -0,0 +1,87 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.ExecutionCase;
+import org.junit.Test;
+
+/**
+ * Test that judging {@link CaseStream streamed} output agrees with judging
+ * the whole output at once, however the output is split into chunks.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class CaseStreamTest
+{
+    private static final String[] OUTPUTS = {
+            "", "\n", "\r\n", "a", "a\n", "a\r\n", "a\r", "a\n\n", "a\r\n\r\n", "a\nb", "a\r\nb\r\n",
+            "a\rb", "a\n\nb", "a b", "a  b\n", " a b ", "ab", "a\tb\n", "a b c", "1 2 3\n4 5 6\n" };
+
+    private static void assertAgrees(Judge judge) throws IOException
+    {
+        for (String expected : OUTPUTS)
+            for (String actual : OUTPUTS)
+                for (int chunk = 1; chunk <= Math.max(1, actual.length()); chunk++)
+                    assertAgrees(judge, expected, actual, chunk);
+    }
+
+    private static void assertAgrees(Judge judge, String expected, String actual, int chunk) throws IOException
+    {
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("case");
+        problemCase.setOutput(expected.getBytes());
+
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("case");
+        executionCase.setOutput(actual.getBytes());
+
+        int whole = judge.evaluate(problemCase, executionCase).getValue();
+
+        CaseStream stream = judge.stream(problemCase);
+        byte[] bytes = actual.getBytes();
+        for (int offset = 0; offset < bytes.length; offset += chunk)
+            if (!stream.write(ByteBuffer.wrap(bytes, offset, Math.min(chunk, bytes.length - offset))))
+                break;
+
+        ExecutionCase streamed = new ExecutionCase();
+        streamed.setName("case");
+
+        String message = String.format("%s judging %s against %s in chunks of %d", judge.getClass().getSimpleName(),
+                escape(actual), escape(expected), chunk);
+        assertEquals(message, whole, stream.finish(streamed).getValue());
+    }
+
+    private static String escape(String output)
+    {
+        return '"' + output.replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t") + '"';
+    }
+
+    @Test
+    public void testLineJudge() throws IOException
+    {
+        assertAgrees(new LineJudge());
+    }
+
+    @Test
+    public void testTokenJudge() throws IOException
+    {
+        assertAgrees(new TokenJudge());
+    }
+
+    @Test
+    public void testExactJudge() throws IOException
+    {
+        assertAgrees(new ExactJudge());
+    }
+
+    @Test
+    public void testBufferedJudge() throws IOException
+    {
+        assertAgrees(new ToleranceJudge(ToleranceJudge.DEFAULT_ERROR, ToleranceJudge.DEFAULT_ERROR));
+    }
+}
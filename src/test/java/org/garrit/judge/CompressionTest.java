@@ -0,0 +1,72 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Test {@link Compression compression schemes}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class CompressionTest
+{
+    static byte[] compress(Compression compression, byte[] data) throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = compression.compress(compressed))
+        {
+            output.write(data);
+        }
+
+        return compressed.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrips() throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            builder.append(i % 100).append(' ').append(i % 7).append('\n');
+        byte[] data = builder.toString().getBytes();
+
+        for (Compression compression : Compression.values())
+        {
+            byte[] compressed = compress(compression, data);
+            if (compression != Compression.IDENTITY)
+                assertTrue(compression + " didn't compress", compressed.length < data.length / 5);
+
+            try (InputStream input = compression.decompress(new ByteArrayInputStream(compressed)))
+            {
+                assertArrayEquals(compression.toString(), data, ByteStreams.toByteArray(input));
+            }
+        }
+    }
+
+    @Test
+    public void testParsesContentCodings()
+    {
+        assertEquals(Compression.IDENTITY, Compression.fromString(null));
+        assertEquals(Compression.IDENTITY, Compression.fromString("identity"));
+        assertEquals(Compression.GZIP, Compression.fromString("gzip"));
+        assertEquals(Compression.ZSTD, Compression.fromString(" ZSTD "));
+        assertEquals("deflate", Compression.DEFLATE.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownCodings()
+    {
+        Compression.fromString("br");
+    }
+}
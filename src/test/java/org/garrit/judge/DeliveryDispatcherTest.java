@@ -0,0 +1,91 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test the {@link DeliveryDispatcher delivery dispatcher}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class DeliveryDispatcherTest
+{
+    @Test
+    public void testDeliversInlineOneAtATime() throws InterruptedException
+    {
+        DeliveryDispatcher dispatcher = new DeliveryDispatcher(DeliveryDispatcher.Threads.PLATFORM, 1);
+        Thread[] delivered = new Thread[1];
+
+        dispatcher.dispatch(() -> delivered[0] = Thread.currentThread());
+        dispatcher.close();
+
+        assertSame(Thread.currentThread(), delivered[0]);
+    }
+
+    private static void testBoundsConcurrency(DeliveryDispatcher.Threads threads) throws InterruptedException
+    {
+        DeliveryDispatcher dispatcher = new DeliveryDispatcher(threads, 3);
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(4);
+        AtomicInteger delivered = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++)
+            dispatcher.dispatch(() -> {
+                started.countDown();
+                release.await();
+                delivered.incrementAndGet();
+                finished.countDown();
+            });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        /* A fourth delivery has to wait for one of the others. */
+        Thread dispatching = new Thread(() -> {
+            try
+            {
+                dispatcher.dispatch(() -> {
+                    delivered.incrementAndGet();
+                    finished.countDown();
+                });
+            }
+            catch (InterruptedException e)
+            {
+                /* Fall through to the assertions. */
+            }
+        });
+        dispatching.start();
+        dispatching.join(200);
+        assertTrue(dispatching.isAlive());
+
+        release.countDown();
+        dispatching.join(10000);
+        assertFalse(dispatching.isAlive());
+
+        /* Closing abandons deliveries which haven't started yet. */
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        dispatcher.close();
+        assertEquals(4, delivered.get());
+    }
+
+    @Test
+    public void testBoundsPlatformConcurrency() throws InterruptedException
+    {
+        testBoundsConcurrency(DeliveryDispatcher.Threads.PLATFORM);
+    }
+
+    @Test
+    public void testBoundsVirtualConcurrency() throws InterruptedException
+    {
+        /* Platform threads stand in on JDKs before 24. */
+        testBoundsConcurrency(DeliveryDispatcher.Threads.VIRTUAL);
+    }
+}
@@ -0,0 +1,58 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Test {@link Fingerprint output fingerprints}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class FingerprintTest
+{
+    private static byte[] output(int bytes)
+    {
+        byte[] output = new byte[bytes];
+        for (int i = 0; i < bytes; i++)
+            output[i] = (byte) ('a' + i % 26);
+
+        return output;
+    }
+
+    @Test
+    public void testDistinguishesOutputs()
+    {
+        byte[] output = output(1000);
+        byte[] changed = output.clone();
+        changed[500] = '\n';
+
+        assertEquals(Fingerprint.of(output), Fingerprint.of(output.clone()));
+        assertNotEquals(Fingerprint.of(output), Fingerprint.of(changed));
+        assertNotEquals(Fingerprint.of(output), Fingerprint.of(output(999)));
+    }
+
+    @Test
+    public void testBuffersAgree()
+    {
+        /* Larger than a chunk, so that direct buffers are hashed in pieces. */
+        byte[] output = output(200 * 1024 + 7);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(output.length + 2);
+        direct.position(1);
+        direct.put(output);
+        direct.flip();
+        direct.position(1);
+
+        ByteBuffer slice = ByteBuffer.wrap(new byte[output.length + 2], 1, output.length).slice();
+        slice.duplicate().put(output);
+
+        assertEquals(Fingerprint.of(output), Fingerprint.of(direct));
+        assertEquals(Fingerprint.of(output), Fingerprint.of(slice));
+        assertEquals(1, direct.position());
+    }
+}
@@ -0,0 +1,204 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.Judgement;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the {@link Journal journal} and {@link JournaledQueue journaled queue}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class JournalTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory()
+    {
+        return this.folder.getRoot().toPath().resolve("journal");
+    }
+
+    private Journal open(long segmentBytes) throws IOException
+    {
+        return new Journal(this.directory(), segmentBytes, 10);
+    }
+
+    @Test
+    public void testReplaysUnacknowledgedEntries() throws IOException
+    {
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            long one = journal.append("one".getBytes());
+            journal.append("two".getBytes());
+            long three = journal.append("three".getBytes());
+
+            journal.acknowledge(one);
+            journal.acknowledge(three);
+        }
+
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            Map<Long, byte[]> replayed = journal.replay();
+
+            assertEquals(1, replayed.size());
+            assertArrayEquals("two".getBytes(), replayed.values().iterator().next());
+
+            /* Sequence numbers carry on from where they left off. */
+            assertEquals(3, journal.append("four".getBytes()));
+        }
+    }
+
+    @Test
+    public void testDeletesAcknowledgedSegments() throws IOException
+    {
+        try (Journal journal = this.open(16))
+        {
+            ArrayList<Long> sequences = new ArrayList<>();
+            for (int i = 0; i < 10; i++)
+                sequences.add(journal.append(("entry " + i).getBytes()));
+
+            assertEquals(10, this.directory().toFile().list().length);
+
+            /* Acknowledging a later segment alone mustn't delete it, as an
+             * older segment might depend on its acknowledgements. */
+            journal.acknowledge(sequences.get(5));
+            assertEquals(10, this.directory().toFile().list().length);
+
+            for (long sequence : sequences)
+                if (sequence != sequences.get(5))
+                    journal.acknowledge(sequence);
+
+            assertEquals(1, this.directory().toFile().list().length);
+        }
+
+        try (Journal journal = this.open(16))
+        {
+            assertEquals(0, journal.replay().size());
+        }
+    }
+
+    @Test
+    public void testIgnoresTornRecords() throws IOException
+    {
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            journal.append("one".getBytes());
+            journal.append("two".getBytes());
+        }
+
+        File segment = this.directory().toFile().listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw"))
+        {
+            file.setLength(file.length() - 2);
+        }
+
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            Map<Long, byte[]> replayed = journal.replay();
+
+            assertEquals(1, replayed.size());
+            assertArrayEquals("one".getBytes(), replayed.get(0L));
+        }
+    }
+
+    @Test
+    public void testIgnoresCorruptLengths() throws IOException
+    {
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            journal.append("one".getBytes());
+            journal.append("two".getBytes());
+            journal.append("three".getBytes());
+        }
+
+        /* Claim the second record is far bigger than the segment, or the
+         * heap. */
+        File segment = this.directory().toFile().listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw"))
+        {
+            file.seek(4 + 1 + 8 + "one".length() + 4);
+            file.writeInt(Integer.MAX_VALUE - 1);
+        }
+
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            Map<Long, byte[]> replayed = journal.replay();
+
+            assertEquals(1, replayed.size());
+            assertArrayEquals("one".getBytes(), replayed.get(0L));
+        }
+    }
+
+    @Test
+    public void testQueueReplaysUndeliveredMessages() throws IOException
+    {
+        ObjectMapper mapper = new ObjectMapper();
+
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            JournaledQueue<Judgement> queue = new JournaledQueue<>(journal, mapper,
+                    mapper.getTypeFactory().constructType(Judgement.class));
+
+            for (int i = 0; i < 3; i++)
+            {
+                Execution execution = new Execution();
+                execution.setId(i);
+                queue.offer(new Judgement(execution));
+            }
+
+            queue.acknowledge(queue.poll());
+            queue.poll();
+        }
+
+        try (Journal journal = this.open(1024 * 1024))
+        {
+            JournaledQueue<Judgement> queue = new JournaledQueue<>(journal, mapper,
+                    mapper.getTypeFactory().constructType(Judgement.class));
+
+            assertEquals(2, queue.size());
+            assertEquals(1, queue.poll().getId());
+            assertEquals(2, queue.poll().getId());
+        }
+    }
+
+    @Test
+    public void testQueueTracksOldestUnacknowledgedMessage() throws InterruptedException
+    {
+        JournaledQueue<Judgement> queue = new JournaledQueue<>();
+        assertEquals(0, queue.oldestAge());
+
+        Judgement first = new Judgement(new Execution());
+        Judgement second = new Judgement(new Execution());
+        queue.offer(first);
+        Thread.sleep(20);
+        queue.offer(second);
+
+        /* Messages taken from the queue still count until acknowledged. */
+        queue.poll();
+        queue.poll();
+        assertTrue(queue.oldestAge() >= 20000000L);
+
+        queue.acknowledge(first);
+        assertTrue(queue.oldestAge() < 20000000L);
+
+        queue.acknowledge(second);
+        assertEquals(0, queue.oldestAge());
+    }
+}
@@ -0,0 +1,73 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test the {@link JudgeFactory judge registry}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class JudgeFactoryTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JudgeFactory factory;
+
+    @Before
+    public void setUp()
+    {
+        this.factory = new JudgeFactory(this.folder.getRoot().toPath());
+    }
+
+    private void settings(String problem, String yaml) throws IOException
+    {
+        Path directory = Files.createDirectories(this.folder.getRoot().toPath().resolve(problem));
+        Files.write(directory.resolve(JudgeSettings.FILE_NAME), yaml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDefaultsToLineJudge() throws IOException
+    {
+        assertTrue(this.factory.getJudge("problem") instanceof LineJudge);
+    }
+
+    @Test
+    public void testSelectsJudgeBySettings() throws IOException
+    {
+        this.settings("problem", "judge: exact\n");
+
+        assertTrue(this.factory.getJudge("problem") instanceof ExactJudge);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsUnknownJudge() throws IOException
+    {
+        this.settings("problem", "judge: nonexistent\n");
+
+        this.factory.getJudge("problem");
+    }
+
+    @Test
+    public void testSharesJudgeUntilInvalidated() throws IOException
+    {
+        Judge judge = this.factory.getJudge("problem");
+        assertSame(judge, this.factory.getJudge("problem"));
+
+        this.factory.invalidated("problem");
+        assertNotSame(judge, this.factory.getJudge("problem"));
+    }
+}
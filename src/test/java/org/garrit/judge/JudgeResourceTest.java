@@ -0,0 +1,269 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.jackson.JacksonMessageBodyProvider;
+import io.dropwizard.jersey.jackson.JsonProcessingExceptionMapper;
+import io.dropwizard.util.Duration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+
+import javax.validation.Validation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.JudgementCase;
+import org.garrit.judge.JudgementManagerTest.InMemoryJudgementManager;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+
+/**
+ * Test the {@link JudgeResource judge resource} over HTTP, with the same
+ * providers the application and Dropwizard register.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class JudgeResourceTest
+{
+    private static final int MAX_QUEUED = 2;
+    private static final long RETRY_AFTER = 7;
+    private static final long MAX_BODY = 1024 * 1024;
+
+    private static final ContentType SMILE = ContentType.create(SmileMediaTypes.APPLICATION_JACKSON_SMILE);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper json = Jackson.newObjectMapper();
+    private final ObjectMapper smile = Jackson.newObjectMapper(new SmileFactory());
+
+    private JudgementManager manager;
+    private Server server;
+    private URI uri;
+    private CloseableHttpClient client;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        JudgeConfiguration config = new JudgeConfiguration();
+        config.setNegotiator(URI.create("http://localhost/"));
+        config.setProblems(this.folder.getRoot().toPath());
+        config.setMaxQueuedSubmissions(MAX_QUEUED);
+        config.setRetryAfter(Duration.seconds(RETRY_AFTER));
+
+        /* Never started, so that submissions stay queued. */
+        this.manager = new InMemoryJudgementManager(config, JudgementManagerTest.problem());
+
+        ResourceConfig resources = new ResourceConfig();
+        resources.register(new JacksonMessageBodyProvider(this.json, Validation.buildDefaultValidatorFactory().getValidator()));
+        resources.register(new JsonProcessingExceptionMapper());
+        resources.register(new JacksonSmileProvider(this.smile));
+        resources.register(new DecompressionInterceptor(MAX_BODY));
+        resources.register(new JudgeResource(this.manager, null, config.getRetryAfter().toSeconds()));
+
+        ServletContextHandler context = new ServletContextHandler();
+        context.addServlet(new ServletHolder(new ServletContainer(resources)), "/*");
+
+        this.server = new Server(new InetSocketAddress("localhost", 0));
+        this.server.setHandler(context);
+        this.server.start();
+
+        int port = ((ServerConnector) this.server.getConnectors()[0]).getLocalPort();
+        this.uri = URI.create("http://localhost:" + port + "/judge");
+        this.client = HttpClients.createDefault();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        this.client.close();
+        this.server.stop();
+        this.manager.close();
+    }
+
+    private static byte[] compress(Compression compression, byte[] bytes) throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = compression.compress(compressed))
+        {
+            output.write(bytes);
+        }
+
+        return compressed.toByteArray();
+    }
+
+    /**
+     * A response, read in full so that the connection can be reused.
+     */
+    private static class Reply
+    {
+        final int status;
+        final String contentType;
+        final HttpResponse response;
+        final byte[] body;
+
+        Reply(HttpResponse response) throws IOException
+        {
+            this.status = response.getStatusLine().getStatusCode();
+            this.response = response;
+            this.contentType = this.header(HttpHeaders.CONTENT_TYPE);
+            this.body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+        }
+
+        String header(String name)
+        {
+            return this.response.getFirstHeader(name) == null ? null : this.response.getFirstHeader(name).getValue();
+        }
+    }
+
+    private Reply send(HttpEntityEnclosingRequestBase request, byte[] body, ContentType type, String encoding,
+            String accept) throws IOException
+    {
+        request.setEntity(new ByteArrayEntity(body, type));
+        if (encoding != null)
+            request.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        if (accept != null)
+            request.setHeader(HttpHeaders.ACCEPT, accept);
+
+        return new Reply(this.client.execute(request));
+    }
+
+    private Reply submit(byte[] body, ContentType type, String encoding) throws IOException
+    {
+        return this.send(new HttpPost(this.uri), body, type, encoding, null);
+    }
+
+    private Reply stream(String name, byte[] output, String accept) throws IOException
+    {
+        HttpPut put = new HttpPut(this.uri + "/7/cases/" + name + "?problem=problem");
+        return this.send(put, output, ContentType.APPLICATION_OCTET_STREAM, null, accept);
+    }
+
+    @Test
+    public void testAsksForRetryWhenQueueFull() throws Exception
+    {
+        for (int i = 0; i < MAX_QUEUED; i++)
+        {
+            byte[] body = this.json.writeValueAsBytes(JudgementManagerTest.execution(i));
+            assertEquals(202, this.submit(body, ContentType.APPLICATION_JSON, null).status);
+        }
+
+        byte[] body = this.json.writeValueAsBytes(JudgementManagerTest.execution(MAX_QUEUED));
+        Reply reply = this.submit(body, ContentType.APPLICATION_JSON, null);
+        assertEquals(503, reply.status);
+        assertEquals(Long.toString(RETRY_AFTER), reply.header("Retry-After"));
+    }
+
+    @Test
+    public void testRejectsUnknownPriorities() throws Exception
+    {
+        HttpPost post = new HttpPost(this.uri + "?priority=urgent");
+        byte[] body = this.json.writeValueAsBytes(JudgementManagerTest.execution(0));
+        assertEquals(400, this.send(post, body, ContentType.APPLICATION_JSON, null, null).status);
+    }
+
+    @Test
+    public void testAcceptsSmileSubmissions() throws Exception
+    {
+        Execution execution = JudgementManagerTest.execution(0);
+        assertEquals(202, this.submit(this.smile.writeValueAsBytes(execution), SMILE, null).status);
+
+        /* Smile isn't mistaken for JSON, or vice versa. */
+        assertEquals(400, this.submit(this.smile.writeValueAsBytes(execution), ContentType.APPLICATION_JSON, null).status);
+        assertEquals(415, this.submit(new byte[] { 1 }, ContentType.TEXT_PLAIN, null).status);
+    }
+
+    @Test
+    public void testNegotiatesVerdictFormat() throws Exception
+    {
+        byte[] output = JudgementManagerTest.output(2000);
+
+        Reply reply = this.stream("case0", output, SmileMediaTypes.APPLICATION_JACKSON_SMILE);
+        assertEquals(200, reply.status);
+        assertTrue(reply.contentType.startsWith(SmileMediaTypes.APPLICATION_JACKSON_SMILE));
+        assertEquals(1, this.smile.readValue(reply.body, JudgementCase.class).getValue());
+
+        reply = this.stream("case1", output, MediaType.APPLICATION_JSON);
+        assertEquals(200, reply.status);
+        assertTrue(reply.contentType.startsWith(MediaType.APPLICATION_JSON));
+        assertEquals(1, this.json.readValue(reply.body, JudgementCase.class).getValue());
+    }
+
+    @Test
+    public void testStreamsCaseVerdicts() throws Exception
+    {
+        Reply reply = this.stream("case0", "wrong\n".getBytes(), MediaType.APPLICATION_JSON);
+        assertEquals(200, reply.status);
+
+        JudgementCase verdict = this.json.readValue(reply.body, JudgementCase.class);
+        assertEquals("case0", verdict.getName());
+        assertEquals(0, verdict.getValue());
+
+        assertEquals(404, this.stream("missing", new byte[0], MediaType.APPLICATION_JSON).status);
+
+        HttpPut put = new HttpPut(this.uri + "/7/cases/case0");
+        assertEquals(400, this.send(put, new byte[0], ContentType.APPLICATION_OCTET_STREAM, null, null).status);
+    }
+
+    @Test
+    public void testDecompressesBodies() throws Exception
+    {
+        byte[] body = this.json.writeValueAsBytes(JudgementManagerTest.execution(0));
+
+        for (Compression compression : new Compression[] { Compression.ZSTD, Compression.GZIP })
+            assertEquals(compression.toString(), 202,
+                    this.submit(compress(compression, body), ContentType.APPLICATION_JSON, compression.toString()).status);
+
+        assertEquals(415, this.submit(body, ContentType.APPLICATION_JSON, "br").status);
+    }
+
+    @Test
+    public void testRefusesDecompressionBombs() throws Exception
+    {
+        /* Well-formed JSON, so that the body is read until the limit. */
+        byte[] padding = new byte[(int) MAX_BODY * 4];
+        Arrays.fill(padding, (byte) ' ');
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(padding);
+        body.write(this.json.writeValueAsBytes(JudgementManagerTest.execution(0)));
+
+        byte[] compressed = compress(Compression.ZSTD, body.toByteArray());
+        assertTrue(compressed.length < MAX_BODY);
+
+        assertEquals(413, this.submit(compressed, ContentType.APPLICATION_JSON, Compression.ZSTD.toString()).status);
+        assertTrue(this.manager.getQueued().isEmpty());
+    }
+}
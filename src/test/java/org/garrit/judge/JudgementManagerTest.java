@@ -0,0 +1,850 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.garrit.common.Problem;
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.ErrorSubmission;
+import org.garrit.common.messages.ErrorType;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.Judgement;
+import org.garrit.common.messages.JudgementCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the {@link JudgementManager judgement manager}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+@Slf4j
+public class JudgementManagerTest
+{
+    private static final int CASES = 8;
+    private static final int LINES = 2000;
+
+    /**
+     * A judgement manager serving a single in-memory problem.
+     */
+    static class InMemoryJudgementManager extends JudgementManager
+    {
+        private final Problem problem;
+        private Map<ProblemCase, Fingerprint> fingerprints;
+
+        public InMemoryJudgementManager(JudgeConfiguration config, Problem problem) throws IOException
+        {
+            this(config, problem, new MetricRegistry());
+        }
+
+        public InMemoryJudgementManager(JudgeConfiguration config, Problem problem, MetricRegistry metrics)
+                throws IOException
+        {
+            super(config, metrics);
+            this.problem = problem;
+        }
+
+        @Override
+        protected Problem loadProblem(String name) throws IOException
+        {
+            return this.problem;
+        }
+
+        @Override
+        protected Map<ProblemCase, Fingerprint> loadFingerprints(String name, Problem problem)
+        {
+            return this.fingerprints;
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JudgeConfiguration config(int judgementThreads)
+    {
+        JudgeConfiguration config = new JudgeConfiguration();
+        config.setNegotiator(URI.create("http://localhost/"));
+        config.setProblems(this.folder.getRoot().toPath());
+        config.setJudgementThreads(judgementThreads);
+
+        return config;
+    }
+
+    static byte[] output(int lines)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++)
+            builder.append("line ").append(i).append('\n');
+
+        return builder.toString().getBytes();
+    }
+
+    static Problem problem()
+    {
+        Problem problem = new Problem();
+        problem.setName("problem");
+
+        byte[] output = output(LINES);
+        for (int i = 0; i < CASES; i++)
+        {
+            ProblemCase problemCase = new ProblemCase();
+            problemCase.setName("case" + i);
+            problemCase.setOutput(output);
+            problem.getCases().add(problemCase);
+        }
+
+        return problem;
+    }
+
+    static Execution execution(int id)
+    {
+        Execution execution = new Execution();
+        execution.setId(id);
+        execution.setProblem("problem");
+
+        byte[] output = output(LINES);
+        for (int i = CASES - 1; i >= 0; i--)
+        {
+            ExecutionCase executionCase = new ExecutionCase();
+            executionCase.setName("case" + i);
+            executionCase.setOutput(output);
+            execution.getCases().add(executionCase);
+        }
+
+        return execution;
+    }
+
+    /**
+     * Judge a number of executions, returning the judgements keyed by
+     * execution ID.
+     */
+    private static HashMap<Integer, Judgement> judgeAll(JudgementManager manager, int executions) throws Exception
+    {
+        HashMap<Integer, Judgement> judgements = new HashMap<>();
+
+        for (int i = 0; i < executions; i++)
+            manager.enqueue(execution(i));
+
+        manager.startJudging();
+        try
+        {
+            for (int i = 0; i < executions; i++)
+            {
+                Judgement judgement = manager.outgoingQueue.poll(30, TimeUnit.SECONDS);
+                assertNotNull("Timed out waiting for judgement", judgement);
+                judgements.put(judgement.getId(), judgement);
+            }
+        }
+        finally
+        {
+            manager.close();
+        }
+
+        return judgements;
+    }
+
+    @Test
+    public void testJudgesEveryExecutionInCaseOrder() throws Exception
+    {
+        JudgementManager manager = new InMemoryJudgementManager(this.config(4), problem());
+        HashMap<Integer, Judgement> judgements = judgeAll(manager, 32);
+
+        assertEquals(32, judgements.size());
+        for (Judgement judgement : judgements.values())
+        {
+            assertEquals(CASES, judgement.getCases().size());
+            for (int i = 0; i < CASES; i++)
+            {
+                assertEquals("case" + i, judgement.getCases().get(i).getName());
+                assertEquals(1, judgement.getCases().get(i).getValue());
+            }
+        }
+    }
+
+    /**
+     * @return an execution whose third case is wrong
+     */
+    private static Execution failingExecution(int id)
+    {
+        Execution execution = execution(id);
+        for (ExecutionCase executionCase : execution.getCases())
+            if (executionCase.getName().equals("case2"))
+                executionCase.setOutput(output(LINES - 1));
+
+        return execution;
+    }
+
+    /**
+     * Check that an execution was judged up to its failed third case, and
+     * the rest skipped.
+     */
+    private static void assertStoppedAtFailure(Judgement judgement)
+    {
+        assertEquals(CASES, judgement.getCases().size());
+        for (int i = 0; i < CASES; i++)
+        {
+            JudgementCase judgementCase = judgement.getCases().get(i);
+            assertEquals("case" + i, judgementCase.getName());
+            assertEquals(i < 2 ? 1 : 0, judgementCase.getValue());
+            assertEquals(i > 2, judgementCase instanceof SkippedJudgementCase);
+        }
+    }
+
+    @Test
+    public void testFailsFastOnRequest() throws Exception
+    {
+        MetricRegistry metrics = new MetricRegistry();
+        JudgementManager manager = new InMemoryJudgementManager(this.config(1), problem(), metrics);
+        try
+        {
+            manager.judge(failingExecution(0), true);
+            assertStoppedAtFailure(manager.outgoingQueue.poll());
+
+            /* Without fail-fast, every case is judged. */
+            manager.judge(failingExecution(1), null);
+            Judgement judgement = manager.outgoingQueue.poll();
+            assertEquals(1, judgement.getCases().get(CASES - 1).getValue());
+            assertFalse(judgement.getCases().get(CASES - 1) instanceof SkippedJudgementCase);
+
+            assertEquals(1, metrics.meter(MetricRegistry.name(JudgementManager.class, "fail-fast-stops")).getCount());
+            assertEquals(CASES - 3, metrics.meter(MetricRegistry.name(JudgementManager.class, "skipped-cases"))
+                    .getCount());
+            assertEquals(output(LINES).length * (CASES - 3),
+                    metrics.meter(MetricRegistry.name(JudgementManager.class, "skipped-bytes")).getCount());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testFailsFastByProblemSettings() throws Exception
+    {
+        Path directory = Files.createDirectories(this.folder.getRoot().toPath().resolve("problem"));
+        Files.write(directory.resolve(JudgeSettings.FILE_NAME), "failFast: true\n".getBytes());
+
+        JudgeConfiguration config = this.config(1);
+        config.setCaseThreads(2);
+        config.setParallelCaseThreshold(Size.bytes(1));
+
+        JudgementManager manager = new InMemoryJudgementManager(config, problem());
+        try
+        {
+            manager.judge(failingExecution(0));
+            assertStoppedAtFailure(manager.outgoingQueue.poll());
+
+            /* The submission can still ask for every case to be judged. */
+            manager.judge(failingExecution(1), false);
+            Judgement judgement = manager.outgoingQueue.poll();
+            assertEquals(1, judgement.getCases().get(CASES - 1).getValue());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testJudgesCompressedOutput() throws Exception
+    {
+        MetricRegistry metrics = new MetricRegistry();
+        JudgementManager manager = new InMemoryJudgementManager(this.config(1), problem(), metrics);
+        try
+        {
+            for (Compression compression : new Compression[] { Compression.GZIP, Compression.ZSTD })
+            {
+                Execution execution = failingExecution(0);
+                for (ExecutionCase executionCase : execution.getCases())
+                    executionCase.setOutput(CompressionTest.compress(compression, executionCase.getOutput()));
+
+                manager.judge(execution, null, compression);
+                Judgement judgement = manager.outgoingQueue.poll();
+                assertNotNull(judgement);
+
+                assertEquals(CASES, judgement.getCases().size());
+                for (int i = 0; i < CASES; i++)
+                    assertEquals(compression.toString(), i == 2 ? 0 : 1, judgement.getCases().get(i).getValue());
+            }
+
+            /* Every case was decompressed, bar the end of the wrong one. */
+            long decompressed = metrics.meter(MetricRegistry.name(JudgementManager.class, "decompressed-bytes"))
+                    .getCount();
+            assertTrue(decompressed > 2 * (CASES - 1) * output(LINES).length);
+            assertTrue(decompressed <= 2 * CASES * output(LINES).length);
+            assertNull(manager.errorQueue.peek());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testFailsDecompressionBombs() throws Exception
+    {
+        /* The tolerance judge can't judge incrementally, so it would buffer
+         * everything it was given. */
+        Path directory = Files.createDirectories(this.folder.getRoot().toPath().resolve("problem"));
+        Files.write(directory.resolve(JudgeSettings.FILE_NAME), "judge: tolerance\n".getBytes());
+
+        JudgeConfiguration config = this.config(1);
+        config.setMaxExcessOutput(Size.kilobytes(1));
+
+        MetricRegistry metrics = new MetricRegistry();
+        JudgementManager manager = new InMemoryJudgementManager(config, problem(), metrics);
+        try
+        {
+            /* Megabytes of blank lines, compressed to a few kilobytes. */
+            byte[] bomb = CompressionTest.compress(Compression.GZIP, new byte[16 * 1024 * 1024]);
+            Execution execution = execution(0);
+            for (ExecutionCase executionCase : execution.getCases())
+                executionCase.setOutput(bomb);
+
+            manager.judge(execution, null, Compression.GZIP);
+            Judgement judgement = manager.outgoingQueue.poll();
+            assertNotNull(judgement);
+            for (JudgementCase judgementCase : judgement.getCases())
+                assertEquals(0, judgementCase.getValue());
+
+            long limit = output(LINES).length + 1024;
+            assertEquals(CASES, metrics.meter(MetricRegistry.name(JudgementManager.class, "oversized-outputs"))
+                    .getCount());
+            assertTrue(metrics.meter(MetricRegistry.name(JudgementManager.class, "decompressed-bytes"))
+                    .getCount() <= CASES * (limit + 1));
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testRejectsWhenQueueFull() throws Exception
+    {
+        JudgeConfiguration config = this.config(1);
+        config.setMaxQueuedSubmissions(2);
+
+        JudgementManager manager = new InMemoryJudgementManager(config, problem());
+
+        assertTrue(manager.enqueue(execution(0)));
+        assertTrue(manager.enqueue(execution(1)));
+        assertFalse(manager.enqueue(execution(2)));
+
+        /* Space is freed as executions are judged. */
+        manager.startJudging();
+        try
+        {
+            assertNotNull(manager.outgoingQueue.poll(30, TimeUnit.SECONDS));
+            assertNotNull(manager.outgoingQueue.poll(30, TimeUnit.SECONDS));
+            assertTrue(manager.enqueue(execution(3)));
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testRejectsWhenQueueBytesFull() throws Exception
+    {
+        long executionBytes = output(LINES).length * CASES;
+
+        JudgeConfiguration config = this.config(1);
+        config.setMaxQueuedBytes(Size.bytes(executionBytes * 2 + executionBytes / 2));
+
+        JudgementManager manager = new InMemoryJudgementManager(config, problem());
+
+        assertTrue(manager.enqueue(execution(0)));
+        assertTrue(manager.enqueue(execution(1)));
+        assertFalse(manager.enqueue(execution(2)));
+    }
+
+    @Test
+    public void testReportsLoad() throws Exception
+    {
+        long executionBytes = output(LINES).length * CASES;
+
+        JudgementManager manager = new InMemoryJudgementManager(this.config(2), problem());
+        manager.enqueue(execution(0));
+        manager.enqueue(execution(1));
+
+        assertEquals(Arrays.asList(0, 1), new ArrayList<>(manager.getQueued()));
+
+        Thread.sleep(20);
+        JudgementManager.Load load = manager.getLoad();
+        assertTrue(load.getQueueAge() >= 20);
+        assertEquals(2, load.getQueued());
+        assertEquals(executionBytes * 2, load.getQueuedBytes());
+        assertEquals(0, load.getJudging());
+        assertEquals(2, load.getJudgementThreads());
+
+        manager.startJudging();
+        try
+        {
+            assertNotNull(manager.outgoingQueue.poll(30, TimeUnit.SECONDS));
+            assertNotNull(manager.outgoingQueue.poll(30, TimeUnit.SECONDS));
+
+            load = manager.getLoad();
+            assertEquals(0, load.getQueued());
+            assertEquals(0, load.getQueuedBytes());
+            assertEquals(0, load.getQueueAge());
+            assertTrue(manager.getQueued().isEmpty());
+
+            /* The judgements were taken from the outgoing queue, but never
+             * delivered. */
+            Thread.sleep(20);
+            assertTrue(manager.getLoad().getReportingLag() >= 20);
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testParallelCasesKeepProblemOrder() throws Exception
+    {
+        JudgeConfiguration config = this.config(2);
+        config.setCaseThreads(4);
+        config.setParallelCaseThreshold(Size.bytes(0));
+
+        JudgementManager manager = new InMemoryJudgementManager(config, problem());
+        HashMap<Integer, Judgement> judgements = judgeAll(manager, 16);
+
+        assertEquals(16, judgements.size());
+        for (Judgement judgement : judgements.values())
+        {
+            assertEquals(CASES, judgement.getCases().size());
+            for (int i = 0; i < CASES; i++)
+            {
+                assertEquals("case" + i, judgement.getCases().get(i).getName());
+                assertEquals(1, judgement.getCases().get(i).getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testRecordsStageMetrics() throws Exception
+    {
+        MetricRegistry metrics = new MetricRegistry();
+        JudgementManager manager = new InMemoryJudgementManager(this.config(2), problem(), metrics);
+        judgeAll(manager, 4);
+
+        assertEquals(4, metrics.timer(MetricRegistry.name(JudgementManager.class, "queue-wait")).getCount());
+        assertEquals(4, metrics.timer(MetricRegistry.name(JudgementManager.class, "queue-wait", "contest")).getCount());
+        assertEquals(4, metrics.timer(MetricRegistry.name(JudgementManager.class, "judgements")).getCount());
+        assertEquals(4 * CASES, metrics.timer(MetricRegistry.name(JudgementManager.class, "evaluations")).getCount());
+        assertEquals(4 * CASES, metrics.timer(
+                MetricRegistry.name(JudgementManager.class, "problems", "problem", "evaluations")).getCount());
+        assertEquals(4 * CASES, metrics.timer(MetricRegistry.name(LineJudge.class, "evaluations")).getCount());
+        assertEquals(4L * CASES * output(LINES).length,
+                metrics.meter(MetricRegistry.name(JudgementManager.class, "judged-bytes")).getCount());
+    }
+
+    @Test
+    public void testMatchesFingerprints() throws Exception
+    {
+        Problem problem = problem();
+        MetricRegistry metrics = new MetricRegistry();
+        InMemoryJudgementManager manager = new InMemoryJudgementManager(this.config(1), problem, metrics);
+
+        manager.fingerprints = new IdentityHashMap<>();
+        for (ProblemCase problemCase : problem.getCases())
+            manager.fingerprints.put(problemCase, Fingerprint.of(problemCase.getOutput()));
+
+        /* The same length as the expected output, but different. */
+        Execution execution = execution(0);
+        byte[] wrong = output(LINES);
+        wrong[0] = 'L';
+        execution.getCases().get(0).setOutput(wrong);
+        manager.enqueue(execution);
+
+        manager.startJudging();
+        try
+        {
+            Judgement judgement = manager.outgoingQueue.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for judgement", judgement);
+
+            assertEquals(CASES, judgement.getCases().size());
+            for (int i = 0; i < CASES - 1; i++)
+                assertEquals(1, judgement.getCases().get(i).getValue());
+            assertEquals(0, judgement.getCases().get(CASES - 1).getValue());
+        }
+        finally
+        {
+            manager.close();
+        }
+
+        assertEquals(CASES - 1,
+                metrics.meter(MetricRegistry.name(JudgementManager.class, "fingerprint-matches")).getCount());
+    }
+
+    @Test
+    public void testReusesCachedResults() throws Exception
+    {
+        Problem problem = problem();
+        MetricRegistry metrics = new MetricRegistry();
+        InMemoryJudgementManager manager = new InMemoryJudgementManager(this.config(1), problem, metrics);
+
+        manager.fingerprints = new IdentityHashMap<>();
+        for (ProblemCase problemCase : problem.getCases())
+            manager.fingerprints.put(problemCase, Fingerprint.of(problemCase.getOutput()));
+
+        for (int i = 0; i < 2; i++)
+        {
+            Execution execution = execution(i);
+            for (ExecutionCase executionCase : execution.getCases())
+                executionCase.setOutput("wrong\n".getBytes());
+            manager.enqueue(execution);
+        }
+
+        manager.startJudging();
+        try
+        {
+            for (int i = 0; i < 2; i++)
+            {
+                Judgement judgement = manager.outgoingQueue.poll(30, TimeUnit.SECONDS);
+                assertNotNull("Timed out waiting for judgement", judgement);
+
+                assertEquals(CASES, judgement.getCases().size());
+                for (JudgementCase judgementCase : judgement.getCases())
+                    assertEquals(0, judgementCase.getValue());
+            }
+        }
+        finally
+        {
+            manager.close();
+        }
+
+        assertEquals(CASES, metrics.meter(MetricRegistry.name(ResultCache.class, "misses")).getCount());
+        assertEquals(CASES, metrics.meter(MetricRegistry.name(ResultCache.class, "hits")).getCount());
+    }
+
+    @Test
+    public void testUsesStreamedVerdicts() throws Exception
+    {
+        JudgementManager manager = new InMemoryJudgementManager(this.config(1), problem());
+
+        JudgementCase streamed = manager.judgeStream(7, "problem", "case0", new ByteArrayInputStream("wrong\n".getBytes()));
+        assertEquals(0, streamed.getValue());
+        assertNull(manager.judgeStream(7, "problem", "missing", new ByteArrayInputStream(new byte[0])));
+
+        /* The execution no longer carries the streamed case's output. */
+        Execution execution = execution(7);
+        execution.getCases().stream()
+                .filter(executionCase -> executionCase.getName().equals("case0"))
+                .forEach(executionCase -> executionCase.setOutput(null));
+        manager.enqueue(execution);
+
+        manager.startJudging();
+        try
+        {
+            Judgement judgement = manager.outgoingQueue.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for judgement", judgement);
+
+            assertEquals(CASES, judgement.getCases().size());
+            assertEquals(0, judgement.getCases().get(0).getValue());
+            for (int i = 1; i < CASES; i++)
+                assertEquals(1, judgement.getCases().get(i).getValue());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    /**
+     * Judge executions through a stub negotiator, returning the IDs of the
+     * judgements it received.
+     */
+    private HashSet<Integer> report(JudgeConfiguration config, StubNegotiator stub, int executions) throws Exception
+    {
+        HashSet<Integer> reported = new HashSet<>();
+
+        config.setNegotiator(stub.getUri());
+        JudgementManager manager = new InMemoryJudgementManager(config, problem());
+        for (int i = 0; i < executions; i++)
+            manager.enqueue(execution(i));
+
+        manager.start();
+        try
+        {
+            for (int i = 0; i < 600 && reported.size() < executions; i++)
+            {
+                Thread.sleep(50);
+                reported = reported(stub);
+            }
+        }
+        finally
+        {
+            manager.close();
+        }
+
+        return reported;
+    }
+
+    /**
+     * @return the IDs of the judgements a stub negotiator has received
+     */
+    private static HashSet<Integer> reported(StubNegotiator stub) throws IOException
+    {
+        ObjectMapper mapper = new ObjectMapper();
+        HashSet<Integer> reported = new HashSet<>();
+
+        for (StubNegotiator.Request request : stub.getRequests())
+        {
+            JsonNode body = mapper.readTree(request.body);
+            if (body.isArray())
+                body.forEach(judgement -> reported.add(judgement.get("id").asInt()));
+            else
+                reported.add(body.get("id").asInt());
+        }
+
+        return reported;
+    }
+
+    @Test
+    public void testBatchesReports() throws Exception
+    {
+        try (StubNegotiator stub = new StubNegotiator())
+        {
+            JudgeConfiguration config = this.config(1);
+            config.setReportBatchLinger(Duration.milliseconds(50));
+
+            assertEquals(64, this.report(config, stub, 64).size());
+            log.info("{} requests for 64 judgements", stub.getRequests().size());
+            assertTrue(stub.getRequests().size() < 64);
+            assertTrue(stub.getRequests().stream().anyMatch(request -> request.path.equals("/report")));
+        }
+    }
+
+    @Test
+    public void testReportsConcurrently() throws Exception
+    {
+        try (StubNegotiator stub = new StubNegotiator())
+        {
+            stub.setLatency(20);
+
+            JudgeConfiguration config = this.config(1);
+            config.setReportBatchSize(1);
+            config.setReportConcurrency(8);
+            config.setReportThreads(DeliveryDispatcher.Threads.VIRTUAL);
+
+            assertEquals(64, this.report(config, stub, 64).size());
+            assertTrue(stub.getMaxInFlight() > 1);
+        }
+    }
+
+    @Test
+    public void testFallsBackToIndividualReports() throws Exception
+    {
+        try (StubNegotiator stub = new StubNegotiator())
+        {
+            stub.setResponder(path -> path.equals("/report") ? 404 : 200);
+
+            assertEquals(64, this.report(this.config(1), stub, 64).size());
+            assertEquals(64, stub.getRequests().size());
+        }
+    }
+
+    @Test
+    public void testRetriesFailedReports() throws Exception
+    {
+        try (StubNegotiator stub = new StubNegotiator())
+        {
+            AtomicInteger attempts = new AtomicInteger();
+            stub.setResponder(path -> attempts.incrementAndGet() <= 3 ? 503 : 200);
+
+            JudgeConfiguration config = this.config(1);
+            config.setRetryBackoff(Duration.milliseconds(10));
+
+            assertEquals(8, this.report(config, stub, 8).size());
+        }
+    }
+
+    @Test
+    public void testRetriesThrottledReportsAfterDelay() throws Exception
+    {
+        try (StubNegotiator stub = new StubNegotiator())
+        {
+            AtomicInteger attempts = new AtomicInteger();
+            stub.setResponder(path -> attempts.incrementAndGet() == 1 ? 429 : 200);
+            stub.setRetryAfter("1");
+
+            JudgeConfiguration config = this.config(1);
+            config.setRetryBackoff(Duration.milliseconds(10));
+
+            long start = System.nanoTime();
+            assertEquals(1, this.report(config, stub, 1).size());
+            assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    @Test
+    public void testBoundsStreamedExecutions() throws Exception
+    {
+        JudgeConfiguration config = this.config(1);
+        config.setMaxStreamedExecutions(2);
+
+        MetricRegistry metrics = new MetricRegistry();
+        JudgementManager manager = new InMemoryJudgementManager(config, problem(), metrics);
+        try
+        {
+            for (int id = 1; id <= 3; id++)
+                manager.judgeStream(id, "problem", "case0", new ByteArrayInputStream("wrong\n".getBytes()));
+
+            assertEquals(2, metrics.getGauges().get(MetricRegistry.name(JudgementManager.class, "streamed-executions"))
+                    .getValue());
+
+            /* The latest execution's verdict was kept. */
+            manager.judge(execution(3));
+            assertEquals(0, manager.outgoingQueue.poll().getCases().get(0).getValue());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testReportsCasesWhoseStreamedVerdictExpired() throws Exception
+    {
+        JudgeConfiguration config = this.config(1);
+        config.setStreamTimeout(Duration.milliseconds(1));
+
+        JudgementManager manager = new InMemoryJudgementManager(config, problem());
+        manager.judgeStream(7, "problem", "case0", new ByteArrayInputStream("wrong\n".getBytes()));
+        Thread.sleep(10);
+
+        /* Streaming another execution forgets the first. */
+        manager.judgeStream(8, "problem", "case0", new ByteArrayInputStream("wrong\n".getBytes()));
+
+        Execution execution = execution(7);
+        execution.getCases().stream()
+                .filter(executionCase -> executionCase.getName().equals("case0"))
+                .forEach(executionCase -> executionCase.setOutput(null));
+        manager.enqueue(execution);
+        manager.enqueue(execution(9));
+
+        manager.startJudging();
+        try
+        {
+            Judgement judgement = manager.outgoingQueue.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for judgement", judgement);
+            assertEquals(7, judgement.getId());
+            assertEquals(CASES - 1, judgement.getCases().size());
+
+            ErrorSubmission<Execution> error = manager.errorQueue.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for error", error);
+            assertEquals(7, error.getId());
+            assertEquals(ErrorType.E_JUDGING, error.getType());
+
+            /* The judgement thread carries on with the next execution. */
+            judgement = manager.outgoingQueue.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for judgement", judgement);
+            assertEquals(9, judgement.getId());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testSurvivesFailuresWhileJudging() throws Exception
+    {
+        JudgementManager manager = new InMemoryJudgementManager(this.config(1), problem())
+        {
+            @Override
+            protected Problem loadProblem(String name) throws IOException
+            {
+                if (name.equals("broken"))
+                    throw new AssertionError("Broken problem");
+
+                return super.loadProblem(name);
+            }
+        };
+
+        Execution broken = execution(1);
+        broken.setProblem("broken");
+        manager.enqueue(broken);
+        manager.enqueue(execution(2));
+
+        manager.startJudging();
+        try
+        {
+            ErrorSubmission<Execution> error = manager.errorQueue.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for error", error);
+            assertEquals(1, error.getId());
+            assertEquals(ErrorType.E_INTERNAL, error.getType());
+
+            Judgement judgement = manager.outgoingQueue.poll(30, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for judgement", judgement);
+            assertEquals(2, judgement.getId());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testDeliversJudgementsBeforeClosing() throws Exception
+    {
+        try (StubNegotiator stub = new StubNegotiator())
+        {
+            stub.setLatency(200);
+
+            JudgeConfiguration config = this.config(1);
+            config.setNegotiator(stub.getUri());
+            config.setReportBatchSize(1);
+
+            MetricRegistry metrics = new MetricRegistry();
+            JudgementManager manager = new InMemoryJudgementManager(config, problem(), metrics);
+            for (int i = 0; i < 4; i++)
+                manager.enqueue(execution(i));
+
+            manager.start();
+            Timer judgements = metrics.timer(MetricRegistry.name(JudgementManager.class, "judgements"));
+            for (int i = 0; i < 600 && judgements.getCount() < 2; i++)
+                Thread.sleep(10);
+
+            /* Judgements still waiting on the negotiator are delivered, even
+             * without a journal to keep them in. */
+            manager.close();
+            assertTrue(judgements.getCount() >= 2);
+            assertEquals(judgements.getCount(), reported(stub).size());
+        }
+    }
+}
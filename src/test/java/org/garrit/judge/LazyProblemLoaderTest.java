@@ -0,0 +1,118 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.garrit.common.Problem;
+import org.garrit.common.messages.ErrorType;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Test the {@link LazyProblemLoader lazy problem loader}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class LazyProblemLoaderTest
+{
+    private static final String PATTERN = "{problem}/cases/{case}/output";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(Path problems, String problem, String name, String output) throws IOException
+    {
+        Path directory = Files.createDirectories(problems.resolve(problem).resolve("cases").resolve(name));
+        return Files.write(directory.resolve("output"), output.getBytes());
+    }
+
+    private static Execution execution(String output)
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("one");
+        executionCase.setOutput(output.getBytes());
+
+        Execution execution = new Execution();
+        execution.setProblem("problem");
+        execution.getCases().add(executionCase);
+
+        return execution;
+    }
+
+    @Test
+    public void testLeavesOutputOnDisk() throws IOException
+    {
+        Path problems = this.folder.getRoot().toPath();
+        Path output = this.write(problems, "problem", "one", "line one\n");
+
+        Problem problem = new LazyProblemLoader(problems, PATTERN).load("problem");
+        LazyProblemCase problemCase = (LazyProblemCase) problem.getCases().get(0);
+
+        assertEquals("one", problemCase.getName());
+        assertEquals(9, Judge.expectedLength(problemCase));
+        assertEquals(0, ProblemCache.weigh(problem));
+        assertNull(problemCase.getFingerprint());
+
+        /* The output is only read when it's asked for. */
+        Files.write(output, "line two\n".getBytes());
+        assertArrayEquals("line two\n".getBytes(), problemCase.getOutput());
+        assertTrue(problemCase.readOutput().hasArray());
+        assertEquals(Fingerprint.of("line two\n".getBytes()), problemCase.getFingerprint());
+    }
+
+    @Test
+    public void testJudgesLazyOutput() throws IOException
+    {
+        Path problems = this.folder.getRoot().toPath();
+        this.write(problems, "problem", "one", "line one\r\nline two\r\n");
+
+        Problem problem = new LazyProblemLoader(problems, PATTERN).load("problem");
+
+        assertEquals(1, new LineJudge(execution("line one\nline two")).evaluate(problem.getCases().get(0)).getValue());
+        assertEquals(0, new LineJudge(execution("line one")).evaluate(problem.getCases().get(0)).getValue());
+    }
+
+    @Test
+    public void testReportsUnreadableOutput() throws Exception
+    {
+        Path problems = this.folder.getRoot().toPath();
+        Path output = this.write(problems, "problem", "one", "line one\n");
+
+        JudgeConfiguration config = new JudgeConfiguration();
+        config.setNegotiator(URI.create("http://localhost/"));
+        config.setProblems(problems);
+        config.setJudgementThreads(1);
+        config.setExpectedOutputs(ExpectedOutputStorage.LAZY);
+
+        JudgementManager manager = new JudgementManager(config, new MetricRegistry());
+        try
+        {
+            assertTrue(manager.loadProblem("problem").getCases().get(0) instanceof LazyProblemCase);
+
+            /* The problem's cached, but its output has gone. */
+            Files.delete(output);
+            manager.judge(execution("line one\n"));
+
+            assertNotNull(manager.errorQueue.peek());
+            assertEquals(ErrorType.E_JUDGING, manager.errorQueue.peek().getType());
+        }
+        finally
+        {
+            manager.close();
+        }
+    }
+}
@@ -118,6 +118,106 @@ public class LineJudgeTest
         assertEquals(0, judgeCase.getValue());
     }
 
+    @Test
+    public void testIgnoresCarriageReturnEndings() throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("endings");
+        executionCase.setOutput("line one\rline two\r".getBytes());
+
+        Execution execution = new Execution();
+        execution.getCases().add(executionCase);
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("endings");
+        problemCase.setOutput("line one\nline two\n".getBytes());
+
+        LineJudge judge = new LineJudge(execution);
+        JudgementCase judgeCase = judge.evaluate(problemCase);
+
+        assertEquals(1, judgeCase.getValue());
+    }
+
+    @Test
+    public void testIgnoresTrailingLineEnding() throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("trailing");
+        executionCase.setOutput("line one\nline two\n".getBytes());
+
+        Execution execution = new Execution();
+        execution.getCases().add(executionCase);
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("trailing");
+        problemCase.setOutput("line one\nline two".getBytes());
+
+        LineJudge judge = new LineJudge(execution);
+        JudgementCase judgeCase = judge.evaluate(problemCase);
+
+        assertEquals(1, judgeCase.getValue());
+    }
+
+    @Test
+    public void testBlankLinesCount() throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("blank");
+        executionCase.setOutput("line one\n\nline two".getBytes());
+
+        Execution execution = new Execution();
+        execution.getCases().add(executionCase);
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("blank");
+        problemCase.setOutput("line one\nline two".getBytes());
+
+        LineJudge judge = new LineJudge(execution);
+        JudgementCase judgeCase = judge.evaluate(problemCase);
+
+        assertEquals(0, judgeCase.getValue());
+    }
+
+    @Test
+    public void testExtraBlankLine() throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("blank");
+        executionCase.setOutput("line one\n\n".getBytes());
+
+        Execution execution = new Execution();
+        execution.getCases().add(executionCase);
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("blank");
+        problemCase.setOutput("line one\n".getBytes());
+
+        LineJudge judge = new LineJudge(execution);
+        JudgementCase judgeCase = judge.evaluate(problemCase);
+
+        assertEquals(0, judgeCase.getValue());
+    }
+
+    @Test
+    public void testPrefixLine() throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("prefix");
+        executionCase.setOutput("line".getBytes());
+
+        Execution execution = new Execution();
+        execution.getCases().add(executionCase);
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("prefix");
+        problemCase.setOutput("line one".getBytes());
+
+        LineJudge judge = new LineJudge(execution);
+        JudgementCase judgeCase = judge.evaluate(problemCase);
+
+        assertEquals(0, judgeCase.getValue());
+    }
+
     @Test(expected = IOException.class)
     public void testFailsForMissingCase() throws IOException
     {
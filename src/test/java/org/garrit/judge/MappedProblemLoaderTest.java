@@ -0,0 +1,75 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.garrit.common.Problem;
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.ExecutionCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test the {@link MappedProblemLoader mapped problem loader}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class MappedProblemLoaderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private void write(Path problems, String problem, String name, String output) throws IOException
+    {
+        Path directory = Files.createDirectories(problems.resolve(problem).resolve("cases").resolve(name));
+        Files.write(directory.resolve("output"), output.getBytes());
+    }
+
+    @Test
+    public void testMapsCasesInOrder() throws IOException
+    {
+        Path problems = this.folder.getRoot().toPath();
+        this.write(problems, "problem", "two", "line three\n");
+        this.write(problems, "problem", "one", "line one\nline two\n");
+
+        Problem problem = new MappedProblemLoader(problems, "{problem}/cases/{case}/output").load("problem");
+
+        assertEquals(2, problem.getCases().size());
+        assertEquals("one", problem.getCases().get(0).getName());
+        assertEquals("two", problem.getCases().get(1).getName());
+        assertTrue(problem.getCases().get(0) instanceof MappedProblemCase);
+        assertArrayEquals("line one\nline two\n".getBytes(), problem.getCases().get(0).getOutput());
+        assertEquals(0, ProblemCache.weigh(problem));
+    }
+
+    @Test
+    public void testJudgesMappedOutput() throws IOException
+    {
+        Path problems = this.folder.getRoot().toPath();
+        this.write(problems, "problem", "one", "line one\r\nline two\r\n");
+
+        Problem problem = new MappedProblemLoader(problems, "{problem}/cases/{case}/output").load("problem");
+
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("one");
+        executionCase.setOutput("line one\nline two".getBytes());
+
+        Execution execution = new Execution();
+        execution.getCases().add(executionCase);
+
+        assertEquals(1, new LineJudge(execution).evaluate(problem.getCases().get(0)).getValue());
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailsForMissingProblem() throws IOException
+    {
+        new MappedProblemLoader(this.folder.getRoot().toPath(), "{problem}/cases/{case}/output").load("missing");
+    }
+}
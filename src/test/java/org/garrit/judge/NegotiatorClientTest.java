@@ -0,0 +1,124 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.dropwizard.util.Duration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link NegotiatorClient negotiator client}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class NegotiatorClientTest
+{
+    private StubNegotiator stub;
+    private NegotiatorClient client;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.stub = new StubNegotiator();
+        this.client = new NegotiatorClient(this.stub.getUri(), 2, Duration.seconds(5), Duration.seconds(5),
+                WireFormat.JSON);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        this.client.close();
+        this.stub.close();
+    }
+
+    @Test
+    public void testPostsMessages() throws IOException
+    {
+        /* More posts than there are pooled connections, to make sure they're
+         * released after each response. */
+        for (int i = 0; i < 10; i++)
+            this.client.post("report/" + i, this.client.encode(i));
+
+        assertEquals(10, this.stub.getRequests().size());
+        assertEquals("/report/3", this.stub.getRequests().get(3).path);
+        assertEquals("application/json", this.stub.getRequests().get(3).contentType);
+        assertArrayEquals("3".getBytes(), this.stub.getRequests().get(3).body);
+    }
+
+    @Test
+    public void testEncodesBatches() throws IOException
+    {
+        List<Integer> messages = Arrays.asList(1, 2, 3);
+        List<byte[]> encoded = new ArrayList<>();
+        for (Integer message : messages)
+            encoded.add(this.client.encode(message));
+
+        assertArrayEquals("[1,2,3]".getBytes(), this.client.encodeBatch(messages, encoded));
+    }
+
+    @Test
+    public void testPostsSmile() throws IOException
+    {
+        try (NegotiatorClient smile = new NegotiatorClient(this.stub.getUri(), 2, Duration.seconds(5),
+                Duration.seconds(5), WireFormat.SMILE))
+        {
+            List<Integer> messages = Arrays.asList(1, 2, 3);
+            List<byte[]> encoded = new ArrayList<>();
+            for (Integer message : messages)
+                encoded.add(smile.encode(message));
+
+            smile.post("report", smile.encodeBatch(messages, encoded));
+        }
+
+        StubNegotiator.Request request = this.stub.getRequests().get(0);
+        assertEquals("application/x-jackson-smile", request.contentType);
+        assertArrayEquals(new int[] { 1, 2, 3 }, WireFormat.SMILE.newMapper().readValue(request.body, int[].class));
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailsOnErrorStatus() throws IOException
+    {
+        this.stub.setResponder(path -> 500);
+        this.client.post("report/1", this.client.encode(1));
+    }
+
+    @Test
+    public void testReportsRefusals() throws IOException
+    {
+        this.stub.setResponder(path -> 429);
+        this.stub.setRetryAfter("3");
+
+        try
+        {
+            this.client.post("report/1", this.client.encode(1));
+            fail("Refused post succeeded");
+        }
+        catch (NegotiatorException e)
+        {
+            assertEquals(429, e.getStatus());
+            assertEquals(3000, e.getRetryAfter());
+            assertTrue(e.isRetryable());
+        }
+    }
+
+    @Test
+    public void testRetriesOnlyTransientRefusals()
+    {
+        for (int status : new int[] { 302, 408, 429, 500, 503 })
+            assertTrue(String.valueOf(status), new NegotiatorException(status, "").isRetryable());
+        for (int status : new int[] { 400, 403, 404, 413 })
+            assertFalse(String.valueOf(status), new NegotiatorException(status, "").isRetryable());
+    }
+}
@@ -0,0 +1,193 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.garrit.common.Problem;
+import org.garrit.common.ProblemCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Test the {@link ProblemCache problem cache}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ProblemCacheTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Load a problem with a single case whose expected output is the given
+     * number of bytes.
+     */
+    private Problem load(String name, int bytes)
+    {
+        this.loads.incrementAndGet();
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("case");
+        problemCase.setOutput(new byte[bytes]);
+
+        Problem problem = new Problem();
+        problem.setName(name);
+        problem.getCases().add(problemCase);
+
+        return problem;
+    }
+
+    private long count(String meter)
+    {
+        return this.metrics.meter(MetricRegistry.name(ProblemCache.class, meter)).getCount();
+    }
+
+    @Test
+    public void testCachesProblems() throws IOException
+    {
+        ProblemCache cache = new ProblemCache(this.folder.getRoot().toPath(), 100, this.metrics, name -> this.load(name, 10));
+
+        Problem problem = cache.get("one");
+        assertSame(problem, cache.get("one"));
+
+        assertEquals(1, this.loads.get());
+        assertEquals(1, this.count("hits"));
+        assertEquals(1, this.count("misses"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException
+    {
+        ProblemCache cache = new ProblemCache(this.folder.getRoot().toPath(), 100, this.metrics, name -> this.load(name, 40));
+
+        Problem one = cache.get("one");
+        cache.get("two");
+        cache.get("one");
+        cache.get("three");
+
+        assertSame(one, cache.get("one"));
+        assertEquals(3, this.loads.get());
+
+        cache.get("two");
+        assertEquals(4, this.loads.get());
+        assertEquals(2, this.count("evictions"));
+    }
+
+    @Test
+    public void testBoundsProblemsTakingNoHeap() throws IOException
+    {
+        ProblemCache cache = new ProblemCache(this.folder.getRoot().toPath(), 100, 2, this.metrics,
+                name -> this.load(name, 0));
+
+        Problem one = cache.get("one");
+        cache.get("two");
+        cache.get("three");
+
+        assertEquals(1, this.count("evictions"));
+        assertNotSame(one, cache.get("one"));
+    }
+
+    @Test
+    public void testFingerprintsExpectedOutputs() throws Exception
+    {
+        ProblemCache cache = new ProblemCache(this.folder.getRoot().toPath(), 100, this.metrics, name -> this.load(name, 10));
+        try
+        {
+            Problem problem = cache.get("one");
+
+            Map<ProblemCase, Fingerprint> fingerprints = null;
+            for (int i = 0; i < 100 && (fingerprints = cache.getFingerprints("one", problem)) == null; i++)
+                Thread.sleep(50);
+
+            assertEquals(Fingerprint.of(new byte[10]), fingerprints.get(problem.getCases().get(0)));
+
+            /* A definition that's no longer cached has no fingerprints. */
+            cache.invalidate("one");
+            assertNull(cache.getFingerprints("one", problem));
+        }
+        finally
+        {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testDoesNotCacheOversizedProblems() throws IOException
+    {
+        ProblemCache cache = new ProblemCache(this.folder.getRoot().toPath(), 100, this.metrics, name -> this.load(name, 101));
+
+        assertNotSame(cache.get("big"), cache.get("big"));
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    public void testInvalidatesOnChange() throws Exception
+    {
+        Path problems = this.folder.getRoot().toPath();
+        Path output = Files.createDirectories(problems.resolve("one").resolve("cases")).resolve("output");
+        Files.write(output, new byte[1]);
+
+        ProblemCache cache = new ProblemCache(problems, 100, this.metrics, name -> this.load(name, 10));
+        cache.start();
+        try
+        {
+            Problem problem = cache.get("one");
+            Files.write(output, new byte[2]);
+
+            /* Give the watcher a few seconds to notice. */
+            for (int i = 0; i < 100 && cache.get("one") == problem; i++)
+                Thread.sleep(50);
+
+            assertNotSame(problem, cache.get("one"));
+        }
+        finally
+        {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testKeepsAvailableProblemsWhileWatching() throws Exception
+    {
+        Path problems = this.folder.getRoot().toPath();
+        ProblemCache cache = new ProblemCache(problems, 100, this.metrics, name -> this.load(name, 10));
+
+        /* Until changes are watched for, problems are listed every time. */
+        assertNotSame(cache.getAvailable(), cache.getAvailable());
+
+        cache.start();
+        try
+        {
+            List<String> available = cache.getAvailable();
+            assertSame(available, cache.getAvailable());
+
+            Files.createDirectories(problems.resolve("two"));
+
+            /* Give the watcher a few seconds to notice. */
+            for (int i = 0; i < 100 && cache.getAvailable() == available; i++)
+                Thread.sleep(50);
+
+            assertNotSame(available, cache.getAvailable());
+        }
+        finally
+        {
+            cache.close();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Test the {@link ProblemRing problem ring}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ProblemRingTest
+{
+    private static final int PROBLEMS = 10000;
+
+    private static List<URI> judges(int count)
+    {
+        ArrayList<URI> judges = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            judges.add(URI.create("http://judge-" + i + ":8080/"));
+
+        return judges;
+    }
+
+    @Test
+    public void testFindsDistinctOwners()
+    {
+        ProblemRing ring = new ProblemRing(ProblemRingTest.judges(3), 128);
+
+        for (int i = 0; i < 100; i++)
+        {
+            List<URI> owners = ring.owners("problem-" + i, 2);
+            assertEquals(2, owners.size());
+            assertEquals(2, new HashSet<>(owners).size());
+            assertEquals(owners.get(0), ring.owners("problem-" + i, 1).get(0));
+        }
+
+        /* There aren't more owners than judges. */
+        assertEquals(3, ring.owners("problem", 5).size());
+        assertTrue(new ProblemRing(Arrays.asList(), 128).owners("problem", 1).isEmpty());
+    }
+
+    @Test
+    public void testSharesProblemsEvenly()
+    {
+        ProblemRing ring = new ProblemRing(ProblemRingTest.judges(4), 128);
+
+        Map<URI, Integer> counts = new HashMap<>();
+        for (int i = 0; i < PROBLEMS; i++)
+            counts.merge(ring.owners("problem-" + i, 1).get(0), 1, Integer::sum);
+
+        assertEquals(4, counts.size());
+        for (int count : counts.values())
+            assertTrue("Uneven share: " + counts, Math.abs(count - PROBLEMS / 4) < PROBLEMS / 4 / 4);
+    }
+
+    @Test
+    public void testAddingJudgeMovesFewProblems()
+    {
+        List<URI> judges = ProblemRingTest.judges(5);
+        ProblemRing before = new ProblemRing(judges.subList(0, 4), 128);
+        ProblemRing after = new ProblemRing(judges, 128);
+
+        int moved = 0;
+        for (int i = 0; i < PROBLEMS; i++)
+        {
+            URI owner = after.owners("problem-" + i, 1).get(0);
+            if (!owner.equals(before.owners("problem-" + i, 1).get(0)))
+            {
+                /* Problems only ever move to the new judge. */
+                assertEquals(judges.get(4), owner);
+                moved++;
+            }
+        }
+
+        assertTrue("Moved " + moved, moved > PROBLEMS / 5 / 2 && moved < PROBLEMS / 5 * 2);
+    }
+}
@@ -0,0 +1,167 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.hash.HashCode;
+
+/**
+ * Test the {@link ResultCache result cache}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ResultCacheTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    private static final Fingerprint EXPECTED = Fingerprint.of("expected\n".getBytes());
+
+    private static ExecutionCase executionCase(String output)
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("case");
+        executionCase.setOutput(output.getBytes());
+
+        return executionCase;
+    }
+
+    private static HashCode key(String output)
+    {
+        return ResultCache.key("problem", "case", new JudgeSettings(), EXPECTED, Fingerprint.of(output.getBytes()));
+    }
+
+    private static JudgementCase result(ExecutionCase executionCase, int value)
+    {
+        JudgementCase judgementCase = new JudgementCase(executionCase);
+        judgementCase.setValue(value);
+        judgementCase.setValueMin(0);
+        judgementCase.setValueMax(1);
+
+        return judgementCase;
+    }
+
+    private ResultCache open(int maxResults) throws IOException
+    {
+        Journal journal = new Journal(this.folder.getRoot().toPath().resolve("results"), 1024, 10);
+        return new ResultCache(maxResults, journal, new MetricRegistry());
+    }
+
+    private long count(String meter)
+    {
+        return this.metrics.meter(MetricRegistry.name(ResultCache.class, meter)).getCount();
+    }
+
+    @Test
+    public void testReusesResults()
+    {
+        ResultCache cache = new ResultCache(10, this.metrics);
+
+        assertNull(cache.get(key("wrong\n"), executionCase("wrong\n")));
+        cache.put(key("wrong\n"), result(executionCase("wrong\n"), 0));
+
+        ExecutionCase executionCase = executionCase("wrong\n");
+        JudgementCase judgementCase = cache.get(key("wrong\n"), executionCase);
+        assertEquals("case", judgementCase.getName());
+        assertEquals(executionCase.getOutput(), judgementCase.getOutput());
+        assertEquals(0, judgementCase.getValue());
+        assertEquals(1, judgementCase.getValueMax());
+
+        assertNull(cache.get(key("other\n"), executionCase("other\n")));
+
+        assertEquals(1, this.count("hits"));
+        assertEquals(2, this.count("misses"));
+    }
+
+    @Test
+    public void testKeysCoverEverythingJudged()
+    {
+        Fingerprint output = Fingerprint.of("output\n".getBytes());
+        JudgeSettings settings = new JudgeSettings();
+        HashCode key = ResultCache.key("problem", "case", settings, EXPECTED, output);
+
+        JudgeSettings other = new JudgeSettings();
+        other.setJudge("tolerance");
+        other.getParameters().put("absolute", "1e-9");
+        other.getParameters().put("relative", "1e-9");
+
+        JudgeSettings reordered = new JudgeSettings();
+        reordered.setJudge("tolerance");
+        reordered.getParameters().put("relative", "1e-9");
+        reordered.getParameters().put("absolute", "1e-9");
+
+        assertNotEquals(key, ResultCache.key("other", "case", settings, EXPECTED, output));
+        assertNotEquals(key, ResultCache.key("problem", "other", settings, EXPECTED, output));
+        assertNotEquals(key, ResultCache.key("problem", "case", other, EXPECTED, output));
+        assertNotEquals(key, ResultCache.key("problem", "case", settings, output, output));
+        assertEquals(ResultCache.key("problem", "case", other, EXPECTED, output),
+                ResultCache.key("problem", "case", reordered, EXPECTED, output));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed()
+    {
+        ResultCache cache = new ResultCache(2, this.metrics);
+
+        cache.put(key("one\n"), result(executionCase("one\n"), 0));
+        cache.put(key("two\n"), result(executionCase("two\n"), 0));
+        cache.get(key("one\n"), executionCase("one\n"));
+        cache.put(key("three\n"), result(executionCase("three\n"), 0));
+
+        assertNotNull(cache.get(key("one\n"), executionCase("one\n")));
+        assertNull(cache.get(key("two\n"), executionCase("two\n")));
+        assertNotNull(cache.get(key("three\n"), executionCase("three\n")));
+        assertEquals(1, this.count("evictions"));
+    }
+
+    @Test
+    public void testKeepsMismatchPositions()
+    {
+        ResultCache cache = new ResultCache(10, this.metrics);
+
+        MismatchJudgementCase mismatch = new MismatchJudgementCase(executionCase("1 3\n"));
+        mismatch.setValueMax(1);
+        mismatch.setMismatchToken(1L);
+        mismatch.setMismatchOffset(2L);
+        cache.put(key("1 3\n"), mismatch);
+
+        JudgementCase judgementCase = cache.get(key("1 3\n"), executionCase("1 3\n"));
+        assertTrue(judgementCase instanceof MismatchJudgementCase);
+        assertEquals(Long.valueOf(1), ((MismatchJudgementCase) judgementCase).getMismatchToken());
+        assertEquals(Long.valueOf(2), ((MismatchJudgementCase) judgementCase).getMismatchOffset());
+    }
+
+    @Test
+    public void testSurvivesRestart() throws IOException
+    {
+        try (ResultCache cache = this.open(2))
+        {
+            /* Enough results to roll over several journal segments, and to
+             * evict all but the last two. */
+            for (int i = 0; i < 100; i++)
+                cache.put(key(i + "\n"), result(executionCase(i + "\n"), i % 2));
+        }
+
+        try (ResultCache cache = this.open(2))
+        {
+            assertNull(cache.get(key("97\n"), executionCase("97\n")));
+            assertEquals(0, cache.get(key("98\n"), executionCase("98\n")).getValue());
+            assertEquals(1, cache.get(key("99\n"), executionCase("99\n")).getValue());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+
+import javax.ws.rs.core.Response;
+
+import org.garrit.common.messages.Execution;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the {@link ShardRouter shard router}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ShardRouterTest
+{
+    private static final URI SELF = URI.create("http://localhost:1/");
+
+    private StubNegotiator peer;
+    private MetricRegistry metrics;
+    private ShardRouter router;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.peer = new StubNegotiator();
+        this.metrics = new MetricRegistry();
+
+        JudgeConfiguration config = new JudgeConfiguration();
+        config.setSelf(SELF);
+        config.setPeers(Arrays.asList(this.peer.getUri()));
+        this.router = new ShardRouter(config, this.metrics);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        this.router.close();
+        this.peer.close();
+    }
+
+    /**
+     * @return a problem assigned to the peer rather than this judge
+     */
+    private String peerProblem()
+    {
+        for (int i = 0;; i++)
+            if (!this.router.owns("problem-" + i))
+                return "problem-" + i;
+    }
+
+    @Test
+    public void testRoutesToOwners()
+    {
+        int owned = 0;
+        for (int i = 0; i < 100; i++)
+        {
+            String problem = "problem-" + i;
+            URI owner = this.router.route(problem, i);
+            if (this.router.owns(problem))
+            {
+                assertNull(owner);
+                owned++;
+            }
+            else
+                assertEquals(this.peer.getUri(), owner);
+        }
+
+        assertTrue(owned > 0 && owned < 100);
+    }
+
+    @Test
+    public void testForwardsExecutions() throws IOException
+    {
+        Execution execution = new Execution();
+        execution.setId(7);
+        execution.setProblem(this.peerProblem());
+
+        Response response = this.router.submit(this.peer.getUri(), execution, "rejudge", "alice", true,
+                Compression.ZSTD);
+        assertEquals(200, response.getStatus());
+
+        assertEquals(1, this.peer.getRequests().size());
+        StubNegotiator.Request request = this.peer.getRequests().get(0);
+        assertEquals("POST", request.method);
+        assertEquals("/judge", request.path);
+        assertTrue(request.query.contains(ShardRouter.FORWARDED + "=true"));
+        assertTrue(request.query.contains("priority=rejudge"));
+        assertTrue(request.query.contains("submitter=alice"));
+        assertTrue(request.query.contains("failFast=true"));
+        assertEquals("zstd", request.headers.getFirst(Compression.OUTPUT_HEADER));
+
+        Execution forwarded = new ObjectMapper().readValue(request.body, Execution.class);
+        assertEquals(7, forwarded.getId());
+        assertEquals(execution.getProblem(), forwarded.getProblem());
+
+        assertEquals(1, this.metrics.meter(MetricRegistry.name(ShardRouter.class, "forwarded")).getCount());
+    }
+
+    @Test
+    public void testPassesRefusalBack() throws IOException
+    {
+        this.peer.setResponder(path -> 503);
+
+        Execution execution = new Execution();
+        execution.setProblem(this.peerProblem());
+
+        assertEquals(503, this.router.submit(this.peer.getUri(), execution, "contest", null, null, Compression.IDENTITY)
+                .getStatus());
+    }
+
+    @Test
+    public void testForwardsStreamedOutput() throws IOException
+    {
+        byte[] output = "1 2 3\n".getBytes();
+        String problem = this.peerProblem();
+
+        this.router.stream(this.peer.getUri(), 7, problem, "case-1", "text/plain", null,
+                new ByteArrayInputStream(output));
+
+        StubNegotiator.Request request = this.peer.getRequests().get(0);
+        assertEquals("PUT", request.method);
+        assertEquals("/judge/7/cases/case-1", request.path);
+        assertTrue(request.query.contains("problem=" + problem));
+        assertEquals("text/plain", request.contentType);
+        assertArrayEquals(output, request.body);
+    }
+
+    @Test
+    public void testCountsFailures()
+    {
+        this.peer.close();
+
+        Execution execution = new Execution();
+        try
+        {
+            this.router.submit(this.peer.getUri(), execution, "contest", null, null, Compression.IDENTITY);
+            fail("Forwarded to a closed peer");
+        }
+        catch (IOException e)
+        {
+            /* Expected. */
+        }
+
+        assertEquals(1, this.metrics.meter(MetricRegistry.name(ShardRouter.class, "forward-failures")).getCount());
+    }
+}
@@ -0,0 +1,91 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.dropwizard.util.Duration;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.garrit.common.messages.Execution;
+import org.garrit.common.messages.Judgement;
+import org.garrit.common.messages.statuses.Status;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Test the {@link StatusHealthCheck status health check}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class StatusHealthCheckTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JudgementManager manager;
+    private Status status;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        JudgeConfiguration config = new JudgeConfiguration();
+        config.setNegotiator(URI.create("http://localhost/"));
+        config.setProblems(this.folder.getRoot().toPath());
+        config.setJudgementThreads(1);
+
+        this.manager = new JudgementManager(config, new MetricRegistry());
+        this.status = new Status("judge");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        this.manager.close();
+    }
+
+    @Test
+    public void testNeedsCapabilities()
+    {
+        StatusHealthCheck check = new StatusHealthCheck(this.status, this.manager, Duration.minutes(5),
+                Duration.minutes(5));
+        assertFalse(check.execute().isHealthy());
+
+        this.status.setCapabilityStatus(this.manager);
+        assertTrue(check.execute().isHealthy());
+    }
+
+    @Test
+    public void testNoticesOldQueuedExecutions() throws InterruptedException
+    {
+        this.status.setCapabilityStatus(this.manager);
+        StatusHealthCheck check = new StatusHealthCheck(this.status, this.manager, Duration.milliseconds(10),
+                Duration.minutes(5));
+
+        /* The judge isn't started, so nothing's taken from the queue. */
+        this.manager.enqueue(new Execution());
+        Thread.sleep(20);
+
+        assertFalse(check.execute().isHealthy());
+    }
+
+    @Test
+    public void testNoticesReportingLag() throws InterruptedException
+    {
+        this.status.setCapabilityStatus(this.manager);
+        StatusHealthCheck check = new StatusHealthCheck(this.status, this.manager, Duration.minutes(5),
+                Duration.milliseconds(10));
+
+        this.manager.outgoingQueue.offer(new Judgement(new Execution()));
+        Thread.sleep(20);
+
+        assertFalse(check.execute().isHealthy());
+    }
+}
@@ -0,0 +1,168 @@
+package org.garrit.judge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the negotiator, recording every request it receives.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class StubNegotiator implements Closeable
+{
+    /**
+     * A request received by the stub.
+     */
+    public static class Request
+    {
+        public final String method;
+        public final String path;
+        public final String query;
+        public final String contentType;
+        public final Headers headers;
+        public final byte[] body;
+
+        Request(String method, String path, String query, Headers headers, byte[] body)
+        {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.contentType = headers.getFirst("Content-Type");
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    private final HttpServer server;
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private volatile Function<String, Integer> responder = path -> 200;
+    private volatile long latencyMillis = 0;
+    private volatile String retryAfter = null;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public StubNegotiator() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+    }
+
+    /**
+     * @return the endpoint of the stub
+     */
+    public URI getUri()
+    {
+        return URI.create("http://localhost:" + this.server.getAddress().getPort() + "/");
+    }
+
+    /**
+     * @return every request received so far
+     */
+    public List<Request> getRequests()
+    {
+        return this.requests;
+    }
+
+    /**
+     * Decide the response status for each request path.
+     *
+     * @param responder maps the request path to a response status
+     */
+    public void setResponder(Function<String, Integer> responder)
+    {
+        this.responder = responder;
+    }
+
+    /**
+     * Delay every response, as a negotiator under load would.
+     *
+     * @param latencyMillis how long to delay each response
+     */
+    public void setLatency(long latencyMillis)
+    {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Ask for refused requests to be retried after a while.
+     *
+     * @param retryAfter the <code>Retry-After</code> header sent with every
+     *            refusal, or <code>null</code> for none
+     */
+    public void setRetryAfter(String retryAfter)
+    {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the most requests which have been handled at once
+     */
+    public int getMaxInFlight()
+    {
+        return this.maxInFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        this.maxInFlight.accumulateAndGet(this.inFlight.incrementAndGet(), Math::max);
+        try
+        {
+            if (this.latencyMillis > 0)
+                Thread.sleep(this.latencyMillis);
+
+            this.respond(exchange);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            this.inFlight.decrementAndGet();
+        }
+    }
+
+    private void respond(HttpExchange exchange) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody())
+        {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) != -1;)
+                body.write(buffer, 0, read);
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        int status = this.responder.apply(path);
+        if (status >= 200 && status < 300)
+            this.requests.add(new Request(exchange.getRequestMethod(), path, exchange.getRequestURI().getQuery(),
+                    exchange.getRequestHeaders(), body.toByteArray()));
+        else if (this.retryAfter != null)
+            exchange.getResponseHeaders().set("Retry-After", this.retryAfter);
+
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    @Override
+    public void close()
+    {
+        this.server.stop(0);
+    }
+}
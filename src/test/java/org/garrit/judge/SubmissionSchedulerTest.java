@@ -0,0 +1,138 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.garrit.common.messages.Execution;
+import org.garrit.judge.SubmissionScheduler.Priority;
+import org.garrit.judge.SubmissionScheduler.QueuedExecution;
+import org.junit.Test;
+
+/**
+ * Test the {@link SubmissionScheduler submission scheduler}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class SubmissionSchedulerTest
+{
+    private static final long NEVER = TimeUnit.HOURS.toNanos(1);
+
+    private static QueuedExecution queued(int id, Priority priority, String submitter, String problem)
+    {
+        Execution execution = new Execution();
+        execution.setId(id);
+        execution.setProblem(problem);
+
+        return new QueuedExecution(execution, priority, submitter, null, Compression.IDENTITY, 0);
+    }
+
+    private static ArrayList<Integer> takeAll(SubmissionScheduler scheduler) throws InterruptedException
+    {
+        ArrayList<Integer> ids = new ArrayList<>();
+        while (scheduler.size() > 0)
+            ids.add(scheduler.take().execution.getId());
+
+        return ids;
+    }
+
+    @Test
+    public void testServesHigherPrioritiesFirst() throws InterruptedException
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(10, NEVER);
+        scheduler.offer(queued(0, Priority.PRACTICE, "a", "problem"));
+        scheduler.offer(queued(1, Priority.REJUDGE, "a", "problem"));
+        scheduler.offer(queued(2, Priority.CONTEST, "a", "problem"));
+
+        assertEquals(Arrays.asList(2, 1, 0), takeAll(scheduler));
+    }
+
+    @Test
+    public void testTakesTurnsBetweenSubmitters() throws InterruptedException
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(10, NEVER);
+        scheduler.offer(queued(0, Priority.CONTEST, "a", "problem"));
+        scheduler.offer(queued(1, Priority.CONTEST, "a", "problem"));
+        scheduler.offer(queued(2, Priority.CONTEST, "a", "problem"));
+        scheduler.offer(queued(3, Priority.CONTEST, "b", "problem"));
+        scheduler.offer(queued(4, Priority.CONTEST, null, "problem"));
+
+        assertEquals(Arrays.asList(0, 3, 4, 1, 2), takeAll(scheduler));
+    }
+
+    @Test
+    public void testTakesTurnsBetweenProblems() throws InterruptedException
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(10, NEVER);
+        scheduler.offer(queued(0, Priority.REJUDGE, null, "one"));
+        scheduler.offer(queued(1, Priority.REJUDGE, null, "one"));
+        scheduler.offer(queued(2, Priority.REJUDGE, null, "one"));
+        scheduler.offer(queued(3, Priority.REJUDGE, null, "two"));
+        scheduler.offer(queued(4, Priority.REJUDGE, null, "two"));
+
+        assertEquals(Arrays.asList(0, 3, 1, 4, 2), takeAll(scheduler));
+    }
+
+    @Test
+    public void testPreventsStarvation() throws InterruptedException
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(10, TimeUnit.MILLISECONDS.toNanos(50));
+        scheduler.offer(queued(0, Priority.REJUDGE, "r", "problem"));
+        Thread.sleep(100);
+        for (int i = 1; i <= 4; i++)
+            scheduler.offer(queued(i, Priority.CONTEST, "a", "problem"));
+
+        /* The starved rejudge takes its turn among contest submitters. */
+        assertEquals(Arrays.asList(1, 0, 2, 3, 4), takeAll(scheduler));
+    }
+
+    @Test
+    public void testPromotesStarvedExecutionsOneClass() throws InterruptedException
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(10, TimeUnit.MILLISECONDS.toNanos(50));
+        scheduler.offer(queued(0, Priority.PRACTICE, "a", "problem"));
+        scheduler.offer(queued(1, Priority.PRACTICE, "b", "problem"));
+        Thread.sleep(100);
+        scheduler.offer(queued(2, Priority.CONTEST, "a", "problem"));
+
+        /* Promoted to rejudges, the starved practice submissions still wait
+         * for the contest. */
+        assertEquals(2, scheduler.take().execution.getId());
+        assertEquals(0, scheduler.size(Priority.PRACTICE));
+        assertEquals(2, scheduler.size(Priority.REJUDGE));
+        assertEquals(Arrays.asList(0, 1), takeAll(scheduler));
+    }
+
+    @Test
+    public void testRejectsWhenFull() throws InterruptedException
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(2, NEVER);
+
+        assertTrue(scheduler.offer(queued(0, Priority.PRACTICE, "a", "problem")));
+        assertTrue(scheduler.offer(queued(1, Priority.CONTEST, "a", "problem")));
+        assertFalse(scheduler.offer(queued(2, Priority.CONTEST, "a", "problem")));
+
+        scheduler.take();
+        assertTrue(scheduler.offer(queued(3, Priority.CONTEST, "a", "problem")));
+    }
+
+    @Test
+    public void testCountsQueuedExecutions() throws InterruptedException
+    {
+        SubmissionScheduler scheduler = new SubmissionScheduler(10, NEVER);
+        scheduler.offer(queued(0, Priority.PRACTICE, "a", "problem"));
+        scheduler.offer(queued(1, Priority.CONTEST, "a", "problem"));
+        scheduler.offer(queued(2, Priority.CONTEST, "b", "problem"));
+        scheduler.take();
+
+        assertEquals(2, scheduler.size());
+        assertEquals(1, scheduler.size(Priority.CONTEST));
+        assertEquals(0, scheduler.size(Priority.REJUDGE));
+        assertEquals(1, scheduler.size(Priority.PRACTICE));
+    }
+}
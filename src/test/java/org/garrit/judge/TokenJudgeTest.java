@@ -0,0 +1,92 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.ExecutionCase;
+import org.garrit.common.messages.JudgementCase;
+import org.junit.Test;
+
+/**
+ * Test the {@link TokenJudge token judge}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class TokenJudgeTest
+{
+    private static boolean tokensMatch(String expected, String actual)
+    {
+        boolean arrays = TokenJudge.tokensMatch(ByteBuffer.wrap(expected.getBytes()), ByteBuffer.wrap(actual.getBytes()));
+
+        /* Direct buffers take the other path, which should agree. */
+        ByteBuffer expectedBuffer = ByteBuffer.allocateDirect(expected.length());
+        expectedBuffer.put(expected.getBytes()).flip();
+        boolean buffers = TokenJudge.tokensMatch(expectedBuffer, ByteBuffer.wrap(actual.getBytes()));
+
+        assertEquals(arrays, buffers);
+        return arrays;
+    }
+
+    @Test
+    public void testCorrectInput() throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("correct");
+        executionCase.setOutput("1 2 3\n4 5 6\n".getBytes());
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("correct");
+        problemCase.setOutput("1 2 3\n4 5 6\n".getBytes());
+
+        JudgementCase judgeCase = new TokenJudge().evaluate(problemCase, executionCase);
+
+        assertEquals(1, judgeCase.getValue());
+    }
+
+    @Test
+    public void testWrongInput() throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("wrong");
+        executionCase.setOutput("1 2 3\n4 5 7\n".getBytes());
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("wrong");
+        problemCase.setOutput("1 2 3\n4 5 6\n".getBytes());
+
+        JudgementCase judgeCase = new TokenJudge().evaluate(problemCase, executionCase);
+
+        assertEquals(0, judgeCase.getValue());
+    }
+
+    @Test
+    public void testIgnoresWhitespace()
+    {
+        assertTrue(tokensMatch("1 2 3\n4 5 6", "1 2 3 \n4 5 6 \n"));
+        assertTrue(tokensMatch("1 2 3\n4 5 6", "  1\t2   3\r\n\n4 5\f6"));
+        assertTrue(tokensMatch("1 2 3\n4 5 6", "1 2 3 4 5 6"));
+        assertTrue(tokensMatch("", " \n"));
+    }
+
+    @Test
+    public void testRejectsSplitOrJoinedTokens()
+    {
+        assertFalse(tokensMatch("12 3", "1 2 3"));
+        assertFalse(tokensMatch("1 2 3", "12 3"));
+        assertFalse(tokensMatch("1 2", "1 23"));
+    }
+
+    @Test
+    public void testRejectsMissingOrExtraTokens()
+    {
+        assertFalse(tokensMatch("1 2 3", "1 2"));
+        assertFalse(tokensMatch("1 2", "1 2 3"));
+        assertFalse(tokensMatch("1", ""));
+    }
+}
@@ -0,0 +1,126 @@
+package org.garrit.judge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.garrit.common.ProblemCase;
+import org.garrit.common.messages.ExecutionCase;
+import org.junit.Test;
+
+/**
+ * Test the {@link ToleranceJudge tolerance judge}.
+ *
+ * @author Samuel Coleman <samuel@seenet.ca>
+ * @since 1.0.0
+ */
+public class ToleranceJudgeTest
+{
+    private static MismatchJudgementCase evaluate(ToleranceJudge judge, String expected, String actual)
+            throws IOException
+    {
+        ExecutionCase executionCase = new ExecutionCase();
+        executionCase.setName("case");
+        executionCase.setOutput(actual.getBytes());
+
+        ProblemCase problemCase = new ProblemCase();
+        problemCase.setName("case");
+        problemCase.setOutput(expected.getBytes());
+
+        return (MismatchJudgementCase) judge.evaluate(problemCase, executionCase);
+    }
+
+    private static double parse(String number)
+    {
+        return ToleranceJudge.parseNumber(ByteBuffer.wrap(number.getBytes()), 0, number.length());
+    }
+
+    @Test
+    public void testParsesNumbers()
+    {
+        assertEquals(12, parse("12"), 0);
+        assertEquals(-12, parse("-12"), 0);
+        assertEquals(0.5, parse(".5"), 0);
+        assertEquals(3.25, parse("+3.25"), 0);
+        assertEquals(6.02e23, parse("6.02e23"), Math.ulp(6.02e23));
+        assertEquals(1.5e-300, parse("1.5E-300"), Math.ulp(1.5e-300));
+        assertEquals(0.1, parse("0.1000000000000000000000001"), Math.ulp(0.1));
+    }
+
+    @Test
+    public void testRejectsNonNumbers()
+    {
+        assertTrue(Double.isNaN(parse("abc")));
+        assertTrue(Double.isNaN(parse("-")));
+        assertTrue(Double.isNaN(parse(".")));
+        assertTrue(Double.isNaN(parse("1e")));
+        assertTrue(Double.isNaN(parse("1.2.3")));
+        assertTrue(Double.isNaN(parse("1e400")));
+        assertTrue(Double.isNaN(parse("-9e999")));
+    }
+
+    @Test
+    public void testComparesOutOfRangeNumbersExactly() throws IOException
+    {
+        ToleranceJudge judge = new ToleranceJudge(1e-6, 1e-6);
+
+        assertEquals(1, evaluate(judge, "1e400", "1e400").getValue());
+        assertEquals(0, evaluate(judge, "1e400", "9e999").getValue());
+        assertEquals(0, evaluate(judge, "-1e400", "-2e400").getValue());
+    }
+
+    @Test
+    public void testAcceptsNumbersWithinError() throws IOException
+    {
+        ToleranceJudge judge = new ToleranceJudge(1e-6, 0);
+
+        MismatchJudgementCase judged = evaluate(judge, "3.1415926 2\n", "3.1415930   2.0000000001");
+
+        assertEquals(1, judged.getValue());
+        assertNull(judged.getMismatchToken());
+    }
+
+    @Test
+    public void testAcceptsNumbersWithinRelativeError() throws IOException
+    {
+        ToleranceJudge judge = new ToleranceJudge(0, 1e-6);
+
+        assertEquals(1, evaluate(judge, "1000000", "1000000.5").getValue());
+        assertEquals(0, evaluate(judge, "1", "1.5e-6").getValue());
+    }
+
+    @Test
+    public void testReportsFirstMismatch() throws IOException
+    {
+        ToleranceJudge judge = new ToleranceJudge(1e-6, 1e-6);
+
+        MismatchJudgementCase judged = evaluate(judge, "1 2 3 4", "1 2  3.1 4");
+
+        assertEquals(0, judged.getValue());
+        assertEquals(Long.valueOf(2), judged.getMismatchToken());
+        assertEquals(Long.valueOf(5), judged.getMismatchOffset());
+    }
+
+    @Test
+    public void testComparesWordsExactly() throws IOException
+    {
+        ToleranceJudge judge = new ToleranceJudge(1e-6, 1e-6);
+
+        assertEquals(1, evaluate(judge, "YES 1.0", "YES 1").getValue());
+        assertEquals(0, evaluate(judge, "YES 1.0", "yes 1").getValue());
+    }
+
+    @Test
+    public void testReportsMissingTokens() throws IOException
+    {
+        ToleranceJudge judge = new ToleranceJudge(1e-6, 1e-6);
+
+        MismatchJudgementCase judged = evaluate(judge, "1 2 3", "1 2\n");
+
+        assertEquals(0, judged.getValue());
+        assertEquals(Long.valueOf(2), judged.getMismatchToken());
+    }
+}